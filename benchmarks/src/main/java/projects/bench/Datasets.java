@@ -0,0 +1,136 @@
+package projects.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/**
+ * Builds reproducible benchmark data. Every dataset is generated from a fixed seed, so two runs
+ * with the same size parameters work on identical rows.
+ */
+final class Datasets {
+	/** In-memory H2 database in MySQL mode, used as a stand-in for the MySQL server. */
+	static final String H2_URL = "jdbc:h2:mem:projects;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	static final long SEED = 20240101L;
+	static final int CATEGORY_COUNT = 20;
+
+	private Datasets() {
+	}
+
+	/**
+	 * Point the DAO layer at the given database. Must be called before the first DAO is created.
+	 */
+	static void useDatabase(String jdbcUrl) {
+		System.setProperty("projects.db.url", jdbcUrl);
+
+		if (jdbcUrl.startsWith("jdbc:h2:")) {
+			System.setProperty("projects.dao.multiResultSets", "false");
+		}
+	}
+
+	/**
+	 * Recreate the schema from projects_schema.sql and fill it with generated projects.
+	 * 
+	 * @param jdbcUrl            the database to load
+	 * @param projectCount       the number of projects
+	 * @param childrenPerProject the number of materials, steps and categories on each project
+	 */
+	static void load(String jdbcUrl, int projectCount, int childrenPerProject) throws SQLException, IOException {
+		useDatabase(jdbcUrl);
+
+		try (Connection conn = DriverManager.getConnection(jdbcUrl)) {
+			createSchema(conn);
+			insertCategories(conn);
+		}
+
+		Random random = new Random(SEED);
+		List<Project> projects = new ArrayList<>(projectCount);
+
+		for (int index = 0; index < projectCount; index++) {
+			projects.add(newProject(random, index, childrenPerProject));
+		}
+
+		new ProjectDao().insertProjects(projects, ProjectDao.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Generate a project that has not been saved.
+	 */
+	static Project newProject(Random random, int index, int children) {
+		Project project = new Project();
+
+		project.setProjectName("Project " + random.nextInt(1_000_000) + "-" + index);
+		project.setEstimatedHours(BigDecimal.valueOf(random.nextInt(10_000), 2));
+		project.setActualHours(BigDecimal.valueOf(random.nextInt(10_000), 2));
+		project.setDifficulty(1 + random.nextInt(5));
+		project.setNotes("Notes for project " + index + " " + "x".repeat(random.nextInt(200)));
+
+		for (int child = 0; child < children; child++) {
+			Material material = new Material();
+			material.setMaterialName("Material " + child);
+			material.setNumRequired(1 + random.nextInt(20));
+			material.setCost(BigDecimal.valueOf(random.nextInt(100_000), 2));
+			project.getMaterials().add(material);
+
+			Step step = new Step();
+			step.setStepText("Step " + child + " of project " + index);
+			project.getSteps().add(step);
+		}
+
+		for (int categoryId = 1; categoryId <= Math.min(children, CATEGORY_COUNT); categoryId++) {
+			Category category = new Category();
+			category.setCategoryId(categoryId);
+			category.setCategoryName("Category " + categoryId);
+			project.getCategories().add(category);
+		}
+
+		return project;
+	}
+
+	private static void createSchema(Connection conn) throws SQLException, IOException {
+		String schema;
+
+		try (InputStream in = Datasets.class.getResourceAsStream("/projects_schema.sql")) {
+			if (in == null) {
+				throw new IOException("projects_schema.sql is not on the classpath");
+			}
+
+			schema = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+
+		try (Statement stmt = conn.createStatement()) {
+			for (String sql : schema.split(";")) {
+				if (!sql.isBlank()) {
+					stmt.execute(sql);
+				}
+			}
+		}
+	}
+
+	private static void insertCategories(Connection conn) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO category (category_name) VALUES (?)")) {
+			for (int categoryId = 1; categoryId <= CATEGORY_COUNT; categoryId++) {
+				stmt.setString(1, "Category " + categoryId);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package projects.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the two ways of reading the key of a newly inserted project row:
+ * <ul>
+ * <li>{@code lastInsertIdQuery} - the old approach: INSERT, then
+ * {@code SELECT LAST_INSERT_ID() FROM project}, which returns one row per row in the table.</li>
+ * <li>{@code generatedKeys} - INSERT prepared with {@link Statement#RETURN_GENERATED_KEYS}.</li>
+ * </ul>
+ * The old approach slows down as {@code existingRows} grows, while the generated-key approach stays
+ * flat. Runs against an in-memory H2 database in MySQL mode by default. Pass
+ * {@code -p jdbcUrl=jdbc:mysql://...} to run against a real server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertKeyBenchmark {
+	@Param({ "1000", "10000", "100000" })
+	public int existingRows;
+
+	@Param("jdbc:h2:mem:insertkeys;MODE=MySQL;DB_CLOSE_DELAY=-1")
+	public String jdbcUrl;
+
+	private static final String INSERT_SQL = ""
+			+ "INSERT INTO project (project_name, estimated_hours, actual_hours, difficulty, notes) "
+			+ "VALUES ('benchmark', 1.00, 1.00, 3, NULL)";
+
+	private Connection conn;
+	private PreparedStatement plainInsert;
+	private PreparedStatement keyedInsert;
+	private Statement lastInsertIdQuery;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		conn = DriverManager.getConnection(jdbcUrl);
+
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP TABLE IF EXISTS project");
+			stmt.execute("CREATE TABLE project ("
+					+ "project_id INT NOT NULL AUTO_INCREMENT, "
+					+ "project_name VARCHAR(128) NOT NULL, "
+					+ "estimated_hours DECIMAL(7,2), "
+					+ "actual_hours DECIMAL(7,2), "
+					+ "difficulty INT NOT NULL, "
+					+ "notes TEXT, "
+					+ "PRIMARY KEY (project_id))");
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+			for (int row = 0; row < existingRows; row++) {
+				stmt.addBatch();
+
+				if (row % 1000 == 999) {
+					stmt.executeBatch();
+				}
+			}
+
+			stmt.executeBatch();
+		}
+
+		plainInsert = conn.prepareStatement(INSERT_SQL);
+		keyedInsert = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+		lastInsertIdQuery = conn.createStatement();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		conn.close();
+	}
+
+	@Benchmark
+	public int lastInsertIdQuery() throws SQLException {
+		plainInsert.executeUpdate();
+
+		try (ResultSet rs = lastInsertIdQuery.executeQuery("SELECT LAST_INSERT_ID() FROM project")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	@Benchmark
+	public int generatedKeys() throws SQLException {
+		keyedInsert.executeUpdate();
+
+		try (ResultSet rs = keyedInsert.getGeneratedKeys()) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+}
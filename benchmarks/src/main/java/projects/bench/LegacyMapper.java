@@ -0,0 +1,56 @@
+package projects.bench;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * The row mapping code as it was before mappers were cached: reflection and a camel case to snake
+ * case conversion for every field of every row, with exceptions used to detect missing columns.
+ * Kept here only as the baseline for {@link RowMappingBenchmark}.
+ */
+final class LegacyMapper {
+
+	private LegacyMapper() {
+	}
+
+	static <T> T extract(ResultSet rs, Class<T> classType) throws ReflectiveOperationException {
+		Constructor<T> con = classType.getConstructor();
+		T obj = con.newInstance();
+
+		for (Field field : classType.getDeclaredFields()) {
+			String colName = camelCaseToSnakeCase(field.getName());
+
+			field.setAccessible(true);
+			Object fieldValue = null;
+
+			try {
+				fieldValue = rs.getObject(colName);
+			} catch (SQLException e) {
+				// The column isn't in the result set.
+			}
+
+			if (Objects.nonNull(fieldValue)) {
+				field.set(obj, fieldValue);
+			}
+		}
+
+		return obj;
+	}
+
+	private static String camelCaseToSnakeCase(String identifier) {
+		StringBuilder nameBuilder = new StringBuilder();
+
+		for (char ch : identifier.toCharArray()) {
+			if (Character.isUpperCase(ch)) {
+				nameBuilder.append('_').append(Character.toLowerCase(ch));
+			} else {
+				nameBuilder.append(ch);
+			}
+		}
+
+		return nameBuilder.toString();
+	}
+}
@@ -0,0 +1,85 @@
+package projects.bench;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import util.DaoBase;
+
+/**
+ * Binds the five project columns onto a prepared statement, comparing DaoBase.setParameter with
+ * calling the typed JDBC setters directly. The statement is never executed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParameterBindingBenchmark {
+	private static final BigDecimal HOURS = new BigDecimal("12.50");
+
+	private Connection conn;
+	private PreparedStatement stmt;
+	private final Binder binder = new Binder();
+
+	/** Exposes the protected setParameter method. */
+	static class Binder extends DaoBase {
+		void bind(PreparedStatement stmt, int index, Object value, Class<?> classType) throws SQLException {
+			setParameter(stmt, index, value, classType);
+		}
+	}
+
+	@Setup
+	public void setUp() throws SQLException {
+		conn = DriverManager.getConnection("jdbc:h2:mem:binding;MODE=MySQL");
+
+		try (var create = conn.createStatement()) {
+			create.execute("CREATE TABLE project (project_name VARCHAR(128), estimated_hours DECIMAL(7,2), "
+					+ "actual_hours DECIMAL(7,2), difficulty INT, notes TEXT)");
+		}
+
+		stmt = conn.prepareStatement("INSERT INTO project VALUES (?, ?, ?, ?, ?)");
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		conn.close();
+	}
+
+	@Benchmark
+	public PreparedStatement setParameter() throws SQLException {
+		binder.bind(stmt, 1, "Build a bookcase", String.class);
+		binder.bind(stmt, 2, HOURS, BigDecimal.class);
+		binder.bind(stmt, 3, null, BigDecimal.class);
+		binder.bind(stmt, 4, 3, Integer.class);
+		binder.bind(stmt, 5, "Notes", String.class);
+		return stmt;
+	}
+
+	@Benchmark
+	public PreparedStatement directSetters() throws SQLException {
+		stmt.setString(1, "Build a bookcase");
+		stmt.setBigDecimal(2, HOURS);
+		stmt.setNull(3, Types.DECIMAL);
+		stmt.setInt(4, 3);
+		stmt.setString(5, "Notes");
+		return stmt;
+	}
+}
@@ -0,0 +1,102 @@
+package projects.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.ProjectDao;
+import projects.dao.ProjectViewDao;
+import projects.entity.Project;
+import projects.entity.ProjectPage;
+import projects.entity.ProjectView;
+
+/**
+ * End-to-end ProjectDao operations, including the connection pool and row mapping. By default the
+ * DAO runs against an in-memory H2 database in MySQL mode loaded with a generated dataset of
+ * {@code projects} projects, each with {@code children} materials, steps and categories. Pass
+ * {@code -p jdbcUrl=jdbc:mysql://...} to run against a real (scratch) MySQL schema instead; the
+ * schema is dropped and recreated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectDaoBenchmark {
+	@Param({ "1000", "10000" })
+	public int projects;
+
+	@Param({ "10" })
+	public int children;
+
+	@Param(Datasets.H2_URL)
+	public String jdbcUrl;
+
+	private ProjectDao projectDao;
+	private ProjectViewDao projectViewDao;
+	private Random random;
+	private List<Integer> idBatch;
+
+	@Setup
+	public void setUp() throws Exception {
+		Datasets.load(jdbcUrl, projects, children);
+
+		projectDao = new ProjectDao();
+		projectViewDao = new ProjectViewDao(projectDao.getCategoryDictionary());
+		random = new Random(Datasets.SEED);
+		idBatch = new ArrayList<>();
+
+		for (int index = 0; index < 100; index++) {
+			idBatch.add(1 + random.nextInt(projects));
+		}
+	}
+
+	@Benchmark
+	public Project fetchProjectById() {
+		return projectDao.fetchProjectById(1 + random.nextInt(projects)).orElseThrow();
+	}
+
+	@Benchmark
+	public ProjectView fetchProjectView() {
+		return projectViewDao.fetchProjectView(1 + random.nextInt(projects)).orElseThrow();
+	}
+
+	@Benchmark
+	public List<Project> fetchAllProjects() {
+		return projectDao.fetchAllProjects();
+	}
+
+	@Benchmark
+	public List<ProjectView> fetchProjectViews() {
+		return projectViewDao.fetchProjectViews();
+	}
+
+	@Benchmark
+	public ProjectPage fetchFirstPage() {
+		return projectDao.fetchProjectPage(null, 50);
+	}
+
+	@Benchmark
+	public List<Project> fetchHundredProjectsByIds() {
+		return projectDao.fetchProjectsByIds(idBatch, ProjectDao.DEFAULT_BATCH_SIZE);
+	}
+
+	@Benchmark
+	public Project insertProject() {
+		return projectDao.insertProject(Datasets.newProject(random, projects, 0));
+	}
+}
@@ -0,0 +1,82 @@
+package projects.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/**
+ * Measures the retained heap size of projects read through ProjectDao, with JOL. For each child
+ * count the projects are loaded into H2 and read back with fetchProjectsByIds, and the report
+ * shows the bytes per project as read now ("after") and as they would be if the three child lists
+ * were LinkedLists ("before"). It also compares the container that fetchAllProjects returns.
+ *
+ * All projects are measured as one graph, so objects they share (the category dictionary entries,
+ * the ProjectColumn constants behind each dirty column set) are counted once and spread over the
+ * projects. The before figure swaps the list containers only: the size of each LinkedList copy
+ * replaces the size of the ArrayList, and the elements are counted once either way.
+ *
+ * Run it from the shaded jar, not through JMH:
+ *
+ * java -cp benchmarks/target/benchmarks.jar projects.bench.ProjectFootprint
+ */
+public final class ProjectFootprint {
+	private static final int PROJECTS = 100;
+	private static final int[] CHILDREN = { 0, 3, 10, 50 };
+
+	private ProjectFootprint() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		String jdbcUrl = args.length > 0 ? args[0] : Datasets.H2_URL;
+
+		System.out.printf("%8s %14s %14s %8s%n", "children", "before B/proj", "after B/proj", "saved");
+
+		for (int children : CHILDREN) {
+			Datasets.load(jdbcUrl, PROJECTS, children);
+
+			List<Integer> ids = new ArrayList<>(PROJECTS);
+
+			for (int id = 1; id <= PROJECTS; id++) {
+				ids.add(id);
+			}
+
+			List<Project> projects = new ProjectDao().fetchProjectsByIds(ids, ProjectDao.DEFAULT_BATCH_SIZE);
+			long after = GraphLayout.parseInstance(projects.toArray()).totalSize();
+			long before = after;
+
+			for (Project project : projects) {
+				before -= containerSize(project.getMaterials()) + containerSize(project.getSteps())
+						+ containerSize(project.getCategories());
+				before += containerSize(new LinkedList<>(project.getMaterials()))
+						+ containerSize(new LinkedList<>(project.getSteps()))
+						+ containerSize(new LinkedList<>(project.getCategories()));
+			}
+
+			System.out.printf("%8d %14d %14d %7.1f%%%n", children, before / projects.size(), after / projects.size(),
+					100.0 * (before - after) / before);
+		}
+
+		List<Project> all = new ProjectDao().fetchAllProjects();
+
+		System.out.printf("%nfetchAllProjects container for %d projects: LinkedList %d B, List.copyOf %d B%n",
+				all.size(), containerSize(new LinkedList<>(all)), containerSize(all));
+	}
+
+	/*
+	 * The bytes used by the list itself: its header, array or nodes, but not the elements. An empty
+	 * ArrayList points at a shared empty array, which is not counted.
+	 */
+	private static long containerSize(List<?> list) {
+		if (list.isEmpty()) {
+			return VM.current().sizeOf(list);
+		}
+
+		return GraphLayout.parseInstance(list).subtract(GraphLayout.parseInstance(list.toArray())).totalSize();
+	}
+}
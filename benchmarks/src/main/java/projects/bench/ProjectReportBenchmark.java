@@ -0,0 +1,82 @@
+package projects.bench;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.ProjectDao;
+import projects.dao.ProjectReportDao;
+import projects.entity.CostTotals;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.ProjectCostSummary;
+import projects.entity.ProjectSummary;
+
+/**
+ * The total material cost of every project, computed the old way (load each project with
+ * fetchProjectById and sum in Java) and with the aggregate report queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectReportBenchmark {
+	@Param({ "1000" })
+	public int projects;
+
+	@Param({ "10" })
+	public int children;
+
+	@Param(Datasets.H2_URL)
+	public String jdbcUrl;
+
+	private ProjectDao projectDao;
+	private ProjectReportDao projectReportDao;
+
+	@Setup
+	public void setUp() throws Exception {
+		Datasets.load(jdbcUrl, projects, children);
+
+		projectDao = new ProjectDao();
+		projectReportDao = new ProjectReportDao();
+	}
+
+	@Benchmark
+	public BigDecimal materialCostInJava() {
+		BigDecimal total = BigDecimal.ZERO;
+
+		for (ProjectSummary summary : projectDao.fetchProjectSummaries()) {
+			Project project = projectDao.fetchProjectById(summary.projectId()).orElseThrow();
+
+			for (Material material : project.getMaterials()) {
+				total = total.add(material.getCost().multiply(BigDecimal.valueOf(material.getNumRequired())));
+			}
+		}
+
+		return total;
+	}
+
+	@Benchmark
+	public List<ProjectCostSummary> projectCostsInSql() {
+		return projectReportDao.fetchProjectCosts();
+	}
+
+	@Benchmark
+	public List<CostTotals> costsByCategoryInSql() {
+		return projectReportDao.fetchCostsByCategory();
+	}
+}
@@ -0,0 +1,45 @@
+package projects.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.entity.Project;
+
+/**
+ * Renders a project with the given number of materials, steps and categories. ProjectsApp prints
+ * the current project on every menu redraw.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectToStringBenchmark {
+	@Param({ "10", "200" })
+	public int children;
+
+	private Project project;
+
+	@Setup
+	public void setUp() {
+		project = Datasets.newProject(new Random(Datasets.SEED), 1, children);
+	}
+
+	@Benchmark
+	public String render() {
+		return project.toString();
+	}
+}
@@ -0,0 +1,115 @@
+package projects.bench;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import projects.entity.Material;
+import projects.entity.Step;
+import util.DaoBase;
+
+/**
+ * Maps every row of an in-memory result set to entities, comparing the cached mapper behind
+ * DaoBase.extract with the per-row reflection it replaced. No database is involved, so this
+ * measures mapping cost alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+	@Param({ "100", "10000" })
+	public int rows;
+
+	private SimpleResultSet steps;
+	private SimpleResultSet materials;
+	private final Extractor extractor = new Extractor();
+
+	/** Exposes the protected extract method. */
+	static class Extractor extends DaoBase {
+		<T> T map(ResultSet rs, Class<T> classType) {
+			return extract(rs, classType);
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(Datasets.SEED);
+
+		steps = new SimpleResultSet();
+		steps.setAutoClose(false);
+		steps.addColumn("step_id", Types.INTEGER, 10, 0);
+		steps.addColumn("project_id", Types.INTEGER, 10, 0);
+		steps.addColumn("step_text", Types.VARCHAR, 255, 0);
+		steps.addColumn("step_order", Types.INTEGER, 10, 0);
+
+		materials = new SimpleResultSet();
+		materials.setAutoClose(false);
+		materials.addColumn("material_id", Types.INTEGER, 10, 0);
+		materials.addColumn("project_id", Types.INTEGER, 10, 0);
+		materials.addColumn("material_name", Types.VARCHAR, 128, 0);
+		materials.addColumn("num_required", Types.INTEGER, 10, 0);
+		materials.addColumn("cost", Types.DECIMAL, 7, 2);
+
+		for (int row = 1; row <= rows; row++) {
+			steps.addRow(row, 1, "Step text " + random.nextInt(), row);
+			materials.addRow(row, 1, "Material " + random.nextInt(), random.nextInt(20),
+					BigDecimal.valueOf(random.nextInt(100_000), 2));
+		}
+	}
+
+	@Benchmark
+	public void cachedSteps(Blackhole blackhole) throws SQLException {
+		steps.beforeFirst();
+
+		while (steps.next()) {
+			blackhole.consume(extractor.map(steps, Step.class));
+		}
+	}
+
+	@Benchmark
+	public void reflectiveSteps(Blackhole blackhole) throws Exception {
+		steps.beforeFirst();
+
+		while (steps.next()) {
+			blackhole.consume(LegacyMapper.extract(steps, Step.class));
+		}
+	}
+
+	@Benchmark
+	public void cachedMaterials(Blackhole blackhole) throws SQLException {
+		materials.beforeFirst();
+
+		while (materials.next()) {
+			blackhole.consume(extractor.map(materials, Material.class));
+		}
+	}
+
+	@Benchmark
+	public void reflectiveMaterials(Blackhole blackhole) throws Exception {
+		materials.beforeFirst();
+
+		while (materials.next()) {
+			blackhole.consume(LegacyMapper.extract(materials, Material.class));
+		}
+	}
+}
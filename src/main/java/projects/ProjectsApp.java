@@ -6,8 +6,13 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
 
+import projects.dao.FetchPlan;
+import projects.dao.QueryPlanReport;
+import projects.dao.SchemaMigrator;
 import projects.entity.Project;
+import projects.entity.ProjectSummary;
 import projects.exception.DbException;
+import projects.exception.OptimisticLockException;
 import projects.service.ProjectService;
 
 public class ProjectsApp {	
@@ -26,7 +31,31 @@ public class ProjectsApp {
 	//@formatter:on
 	
 	public static void main(String[] args) {
-		new ProjectsApp().processUserSelection();
+		ProjectsApp app = new ProjectsApp();
+
+		// Bring the schema up to date before anything reads it. Set -Dprojects.db.migrate=false to skip
+		// this, and -Dprojects.db.explain=true to print the query plans of the main DAO statements.
+		try {
+			if(Boolean.parseBoolean(System.getProperty("projects.db.migrate", "true"))) {
+				new SchemaMigrator().migrate();
+			}
+
+			if(Boolean.getBoolean("projects.db.explain")) {
+				System.out.println("\n" + new QueryPlanReport().run());
+			}
+		}
+		catch(DbException e) {
+			System.out.println("\nUnable to prepare the schema: " + e);
+		}
+
+		try {
+			app.projectService.refreshCategories(); // warm the category dictionary before the first project load
+		}
+		catch(DbException e) {
+			System.out.println("\nUnable to load categories: " + e);
+		}
+
+		app.processUserSelection();
 	}	
 	
 	private void processUserSelection() {
@@ -111,26 +140,64 @@ public class ProjectsApp {
 		
 		String notes = getStringInput("Enter additional project notes: [" + curProject.getNotes() + "]");
 		
-		//Create a new Project object. If the user input for a value is not null, add the value to the Project object. 
-		//If the value is null, add the value from curProject. Repeat for all Project variables.
+		//Create a new Project object holding only the values the user changed, so only those columns are written.
+		//The version read with curProject lets the update detect changes made by someone else in the meantime.
 		Project project = new Project();
-		////  Set the project ID field in the Project object to the value in the curProject object.
 		project.setProjectId(curProject.getProjectId());
+		project.setVersion(curProject.getVersion());
+		
+		if(Objects.nonNull(projectName)) {
+			project.setProjectName(projectName);
+		}
 		
-		project.setProjectName(Objects.isNull(projectName) ? curProject.getProjectName() : projectName);
+		if(Objects.nonNull(estimatedHours)) {
+			project.setEstimatedHours(estimatedHours);
+		}
 		
-		project.setEstimatedHours(Objects.isNull(estimatedHours) ? curProject.getEstimatedHours() : estimatedHours);
+		if(Objects.nonNull(actualHours)) {
+			project.setActualHours(actualHours);
+		}
 		
-		project.setActualHours(Objects.isNull(actualHours) ? curProject.getActualHours() : actualHours);
+		if(Objects.nonNull(difficulty)) {
+			project.setDifficulty(difficulty);
+		}
 		
-		project.setDifficulty(Objects.isNull(difficulty) ? curProject.getDifficulty() : difficulty);
+		if(Objects.nonNull(notes)) {
+			project.setNotes(notes);
+		}
+		
+		try {
+			projectService.modifyProjectDetails(project);
+		}
+		catch(OptimisticLockException e) {
+			System.out.println("\nThe project was changed by someone else. It has been reloaded; please make your changes again.");
+			curProject = projectService.fetchProjectById(curProject.getProjectId(), FetchPlan.LAZY);
+			return;
+		}
+		
+		//The update succeeded, so apply the same changes to curProject instead of re-reading it.
+		if(Objects.nonNull(projectName)) {
+			curProject.setProjectName(projectName);
+		}
+		
+		if(Objects.nonNull(estimatedHours)) {
+			curProject.setEstimatedHours(estimatedHours);
+		}
+		
+		if(Objects.nonNull(actualHours)) {
+			curProject.setActualHours(actualHours);
+		}
+		
+		if(Objects.nonNull(difficulty)) {
+			curProject.setDifficulty(difficulty);
+		}
+		
+		if(Objects.nonNull(notes)) {
+			curProject.setNotes(notes);
+		}
 		
-		project.setNotes(Objects.isNull(notes) ? curProject.getNotes() : notes);
-		// Call projectService.modifyProjectDetails(). Pass the Project object as a parameter. Let Eclipse create the method for you in ProjectService.java.
-		projectService.modifyProjectDetails(project);
-		curProject = projectService.fetchProjectById(curProject.getProjectId());
-		//Reread the current project to pick up the changes by calling projectService.fetchProjectById(). Pass the project ID obtained from curProject.
-		//Look up the latest version of curProject from the service using its current ID, and update curProject with that result
+		curProject.setVersion(project.getVersion());
+		curProject.clearDirtyColumns();
 	}
 		
 		
@@ -145,16 +212,17 @@ public class ProjectsApp {
 		 curProject= null; //  Set the instance variable curProject to null to unselect any currently selected project.
 		//Call a new method, fetchProjectById() on the projectService object. The method should take a single parameter, the project ID input by the user. 
 		 curProject = projectService.fetchProjectById(projectId);
+		 System.out.println("\nYou have selected project:" + curProject);
 				 //Note that if an invalid project ID is entered, projectService.fetchProjectById() will throw a NoSuchElementException, which is handled by the catch block in processUserSelections().
 	}
 
 	private void listProjects() {
-		List<Project> projects = projectService.fetchAllProjects();
+		List<ProjectSummary> projects = projectService.fetchProjectSummaries(); // only the ID and name are displayed
 		System.out.println("\nProjects:");
 		// 
 		
-		projects.forEach(project -> System.out.println(" " + project.getProjectId()
-				+ ": " + project.getProjectName()));
+		projects.forEach(project -> System.out.println(" " + project.projectId()
+				+ ": " + project.projectName()));
 		//print the ID and name separated by ": ". Indent each line with a couple of spaces.
 	}
 		
@@ -257,7 +325,7 @@ public class ProjectsApp {
 			System.out.println("\nYou are not working with a project.");
 		}
 		else {
-			System.out.println("\nYou are currently working with project: " + curProject);
+			System.out.println("\nYou are currently working with project: " + curProject.getProjectId() + ": " + curProject.getProjectName());
 			}
 	}
 }
\ No newline at end of file
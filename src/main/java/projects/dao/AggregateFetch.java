@@ -0,0 +1,19 @@
+package projects.dao;
+
+import java.util.Optional;
+
+import projects.entity.Project;
+
+/**
+ * The result of loading a project aggregate: the project, if it exists, and the strategy that was
+ * used to load it.
+ *
+ * @param project  the project with its children, or null if no project has the requested ID
+ * @param strategy the strategy that produced the result
+ */
+public record AggregateFetch(Project project, FetchStrategy strategy) {
+
+	public Optional<Project> asOptional() {
+		return Optional.ofNullable(project);
+	}
+}
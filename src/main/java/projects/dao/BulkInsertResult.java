@@ -0,0 +1,25 @@
+package projects.dao;
+
+/**
+ * Summary of a bulk insert.
+ *
+ * @param projects      the number of projects inserted
+ * @param rows          the total number of rows inserted, including material, step and
+ *                      project_category rows
+ * @param elapsedMillis the wall-clock time the insert took
+ */
+public record BulkInsertResult(int projects, long rows, long elapsedMillis) {
+
+	/**
+	 * @return the insert rate in rows per second
+	 */
+	public double rowsPerSecond() {
+		return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d projects, %d rows in %d ms (%.0f rows/sec)", projects, rows, elapsedMillis,
+				rowsPerSecond());
+	}
+}
@@ -0,0 +1,133 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import projects.entity.Category;
+import projects.entity.CategoryView;
+import projects.exception.DbException;
+import util.DaoBase;
+
+/**
+ * An in-memory copy of the category table. Categories are a small, rarely changing dimension, so
+ * project loads read only the category IDs from project_category and resolve them here instead of
+ * joining the category table every time.
+ * 
+ * The dictionary is an immutable map that is swapped out as a whole when it is reloaded. It is
+ * loaded on first use and reloaded when an ID is requested that it does not contain, which is how
+ * a category added since the last load is picked up. Call {@link #refresh()} after changing or
+ * removing categories.
+ */
+public class CategoryDictionary extends DaoBase {
+	private static final String CATEGORY_TABLE = "category";
+
+	private volatile Map<Integer, Category> categories;
+
+	/* The same categories as read-only views. Replaced together with the map above. */
+	private volatile Map<Integer, CategoryView> views;
+
+	/**
+	 * Look up a category by ID, reloading the dictionary once if the ID is unknown.
+	 * 
+	 * @param conn       the connection to use if the dictionary has to be (re)loaded
+	 * @param categoryId the category ID
+	 * @return the category
+	 * @throws SQLException Thrown if the category does not exist or the table cannot be read
+	 */
+	Category resolve(Connection conn, Integer categoryId) throws SQLException {
+		Map<Integer, Category> current = categories;
+		Category category = Objects.isNull(current) ? null : current.get(categoryId);
+
+		if (Objects.isNull(category)) {
+			category = load(conn).get(categoryId);
+
+			if (Objects.isNull(category)) {
+				throw new SQLException("Category with ID=" + categoryId + " does not exist.");
+			}
+		}
+
+		return category;
+	}
+
+	/**
+	 * Look up the read-only view of a category by ID, reloading the dictionary once if the ID is
+	 * unknown. The views are shared, so resolving one allocates nothing.
+	 * 
+	 * @param conn       the connection to use if the dictionary has to be (re)loaded
+	 * @param categoryId the category ID
+	 * @return the category view
+	 * @throws SQLException Thrown if the category does not exist or the table cannot be read
+	 */
+	CategoryView resolveView(Connection conn, int categoryId) throws SQLException {
+		Map<Integer, CategoryView> current = views;
+		CategoryView view = Objects.isNull(current) ? null : current.get(categoryId);
+
+		if (Objects.isNull(view)) {
+			load(conn);
+			view = views.get(categoryId);
+
+			if (Objects.isNull(view)) {
+				throw new SQLException("Category with ID=" + categoryId + " does not exist.");
+			}
+		}
+
+		return view;
+	}
+
+	/**
+	 * @return every category, keyed by category ID
+	 */
+	public Map<Integer, Category> getAll() {
+		Map<Integer, Category> current = categories;
+
+		if (Objects.nonNull(current)) {
+			return current;
+		}
+
+		try (Connection conn = DbConnection.getConnection()) {
+			return load(conn);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Reload the dictionary from the category table.
+	 */
+	public void refresh() {
+		try (Connection conn = DbConnection.getConnection()) {
+			load(conn);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private Map<Integer, Category> load(Connection conn) throws SQLException {
+		String sql = "SELECT * FROM " + CATEGORY_TABLE;
+		Map<Integer, Category> loaded = new HashMap<>();
+		Map<Integer, CategoryView> loadedViews = new HashMap<>();
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+			try (ResultSet rs = stmt.executeQuery()) {
+				RowExtractor<Category> rows = extractor(rs, Category.class);
+
+				while (rs.next()) {
+					Category category = rows.extract(rs);
+					loaded.put(category.getCategoryId(), category);
+					loadedViews.put(category.getCategoryId(),
+							new CategoryView(category.getCategoryId(), category.getCategoryName()));
+				}
+			}
+		}
+
+		Map<Integer, Category> result = Map.copyOf(loaded);
+		views = Map.copyOf(loadedViews);
+		categories = result;
+		return result;
+	}
+}
@@ -0,0 +1,597 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import projects.exception.DbException;
+
+/**
+ * A bounded pool of physical JDBC connections. Callers obtain a connection with
+ * {@link #getConnection()} and hand it back by calling {@link Connection#close()}, exactly as they
+ * would with an unpooled connection, so the DAO code does not change.
+ *
+ * The pool keeps between {@link Settings#minSize()} and {@link Settings#maxSize()} physical
+ * connections. Idle connections above the minimum are closed after
+ * {@link Settings#idleTimeoutMillis()}. A connection that has been idle longer than
+ * {@link Settings#validationIdleMillis()} is validated before it is handed out. A connection held
+ * longer than {@link Settings#leakThresholdMillis()} is reported as a possible leak along with the
+ * stack trace of the code that borrowed it.
+ *
+ * Each physical connection keeps a {@link StatementCache} of up to
+ * {@link Settings#statementCacheSize()} prepared statements, so SQL prepared by one borrower is
+ * reused by the next.
+ *
+ * Locking uses {@link ReentrantLock} instead of synchronized so that virtual threads waiting for a
+ * connection do not pin their carrier thread.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+  /**
+   * Opens a new physical connection to the database.
+   */
+  @FunctionalInterface
+  public interface ConnectionFactory {
+    Connection open() throws SQLException;
+  }
+
+  /**
+   * Pool sizing and timing settings.
+   *
+   * @param minSize The number of connections kept open even when idle.
+   * @param maxSize The upper bound on open connections.
+   * @param acquireTimeoutMillis How long {@link ConnectionPool#getConnection()} waits for a free
+   *        connection before giving up.
+   * @param idleTimeoutMillis How long a connection above the minimum may sit idle before it is
+   *        closed. Zero disables idle eviction.
+   * @param validationIdleMillis A connection idle for longer than this is validated on borrow.
+   * @param leakThresholdMillis A connection held longer than this is reported as leaked. Zero
+   *        disables leak detection.
+   * @param statementCacheSize The number of prepared statements cached per connection. Zero
+   *        disables the cache.
+   */
+  public record Settings(int minSize, int maxSize, long acquireTimeoutMillis,
+      long idleTimeoutMillis, long validationIdleMillis, long leakThresholdMillis,
+      int statementCacheSize) {
+
+    public Settings {
+      if(minSize < 0 || maxSize < 1 || minSize > maxSize) {
+        throw new IllegalArgumentException(
+            "Invalid pool size: min=" + minSize + ", max=" + maxSize);
+      }
+
+      if(statementCacheSize < 0) {
+        throw new IllegalArgumentException("Invalid statement cache size: " + statementCacheSize);
+      }
+    }
+  }
+
+  /**
+   * A point-in-time snapshot of the pool counters. The statement counters are totals over every
+   * connection the pool has opened.
+   */
+  public record Stats(int total, int idle, int active, int waiting, long borrowed, long created,
+      long destroyed, long timeouts, long validationFailures, long leaks, long statementHits,
+      long statementMisses, long statementEvictions) {
+
+    /**
+     * @return The fraction of prepareStatement calls served from a statement cache, or 0 if there
+     *         have been none.
+     */
+    public double statementHitRate() {
+      long requests = statementHits + statementMisses;
+      return requests == 0 ? 0 : (double)statementHits / requests;
+    }
+  }
+
+  private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+  private final ConnectionFactory factory;
+  private final Settings settings;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+  private final Deque<PooledConnection> idle = new ArrayDeque<>();
+  private final Set<PooledConnection> inUse = new HashSet<>();
+  private final ScheduledExecutorService housekeeper;
+
+  private int total;
+  private int waiting;
+  private boolean closed;
+
+  private long borrowedCount;
+  private long createdCount;
+  private long destroyedCount;
+  private long timeoutCount;
+  private long validationFailureCount;
+  private long leakCount;
+
+  /* Updated by borrowers without taking the pool lock. */
+  private final LongAdder statementHits = new LongAdder();
+  private final LongAdder statementMisses = new LongAdder();
+  private final LongAdder statementEvictions = new LongAdder();
+
+  public ConnectionPool(ConnectionFactory factory, Settings settings) {
+    this.factory = factory;
+    this.settings = settings;
+
+    housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    long period = housekeepingPeriod(settings);
+    housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Borrows a connection from the pool, opening a new physical connection if none are idle and the
+   * pool is below its maximum size. The returned connection goes back to the pool when it is
+   * closed.
+   *
+   * @return A pooled connection.
+   * @throws DbException Thrown if no connection becomes available within the acquire timeout or if
+   *         a new connection cannot be opened.
+   */
+  public Connection getConnection() {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.acquireTimeoutMillis());
+
+    while(true) {
+      PooledConnection pooled = null;
+      boolean create = false;
+
+      lock.lock();
+      try {
+        while(true) {
+          if(closed) {
+            throw new DbException("The connection pool has been closed.");
+          }
+
+          pooled = idle.pollFirst();
+
+          if(pooled != null) {
+            break;
+          }
+
+          if(total < settings.maxSize()) {
+            total++;
+            create = true;
+            break;
+          }
+
+          long remaining = deadline - System.nanoTime();
+
+          if(remaining <= 0) {
+            timeoutCount++;
+            throw new DbException("Timed out after " + settings.acquireTimeoutMillis()
+                + " ms waiting for a database connection. " + describe());
+          }
+
+          waiting++;
+          try {
+            available.awaitNanos(remaining);
+          }
+          catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while waiting for a database connection.", e);
+          }
+          finally {
+            waiting--;
+          }
+        }
+      }
+      finally {
+        lock.unlock();
+      }
+
+      if(create) {
+        pooled = openPhysical();
+      }
+      else if(!validate(pooled)) {
+        continue;
+      }
+
+      return lend(pooled);
+    }
+  }
+
+  /**
+   * @return A snapshot of the pool counters.
+   */
+  public Stats getStats() {
+    lock.lock();
+    try {
+      return new Stats(total, idle.size(), inUse.size(), waiting, borrowedCount, createdCount,
+          destroyedCount, timeoutCount, validationFailureCount, leakCount, statementHits.sum(),
+          statementMisses.sum(), statementEvictions.sum());
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes all idle connections and stops the pool. Connections still on loan are closed when they
+   * are returned.
+   */
+  @Override
+  public void close() {
+    List<PooledConnection> toClose;
+
+    lock.lock();
+    try {
+      closed = true;
+      toClose = new ArrayList<>(idle);
+      idle.clear();
+      available.signalAll();
+    }
+    finally {
+      lock.unlock();
+    }
+
+    housekeeper.shutdownNow();
+    toClose.forEach(this::destroy);
+  }
+
+  private PooledConnection openPhysical() {
+    try {
+      Connection physical = factory.open();
+
+      lock.lock();
+      try {
+        createdCount++;
+      }
+      finally {
+        lock.unlock();
+      }
+
+      return new PooledConnection(physical);
+    }
+    catch(SQLException | RuntimeException e) {
+      lock.lock();
+      try {
+        total--;
+        available.signal();
+      }
+      finally {
+        lock.unlock();
+      }
+
+      throw e instanceof DbException ? (DbException)e : new DbException(e);
+    }
+  }
+
+  /**
+   * Checks that a connection that has been idle for a while is still usable. Broken connections
+   * are discarded.
+   */
+  private boolean validate(PooledConnection pooled) {
+    long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.lastReturned);
+
+    if(idleMillis < settings.validationIdleMillis()) {
+      return true;
+    }
+
+    boolean valid;
+
+    try {
+      valid = pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+    }
+    catch(SQLException e) {
+      valid = false;
+    }
+
+    if(!valid) {
+      lock.lock();
+      try {
+        validationFailureCount++;
+      }
+      finally {
+        lock.unlock();
+      }
+
+      discard(pooled);
+    }
+
+    return valid;
+  }
+
+  private Connection lend(PooledConnection pooled) {
+    pooled.borrowedAt = System.nanoTime();
+    pooled.borrower = settings.leakThresholdMillis() > 0 ? new Throwable("Connection borrowed here")
+        : null;
+    pooled.leakReported = false;
+
+    lock.lock();
+    try {
+      inUse.add(pooled);
+      borrowedCount++;
+    }
+    finally {
+      lock.unlock();
+    }
+
+    return pooled.newHandle();
+  }
+
+  /**
+   * Returns a connection to the pool. Any transaction left open by the borrower is rolled back and
+   * auto-commit is restored so the next borrower starts from a clean state.
+   */
+  private void release(PooledConnection pooled) {
+    boolean reusable = false;
+
+    try {
+      if(pooled.statements != null) {
+        pooled.statements.releaseAll();
+      }
+
+      if(!pooled.physical.getAutoCommit()) {
+        pooled.physical.rollback();
+        pooled.physical.setAutoCommit(true);
+      }
+
+      reusable = !pooled.physical.isClosed();
+    }
+    catch(SQLException e) {
+      reusable = false;
+    }
+    finally {
+      /* Runs even if the reset throws something unexpected, so the connection is never lost. */
+      returnOrDiscard(pooled, reusable);
+    }
+  }
+
+  private void returnOrDiscard(PooledConnection pooled, boolean reusable) {
+    lock.lock();
+    try {
+      inUse.remove(pooled);
+
+      if(reusable && !closed) {
+        pooled.lastReturned = System.nanoTime();
+        idle.addFirst(pooled);
+        available.signal();
+        return;
+      }
+    }
+    finally {
+      lock.unlock();
+    }
+
+    discard(pooled);
+  }
+
+  private void discard(PooledConnection pooled) {
+    lock.lock();
+    try {
+      total--;
+      available.signal();
+    }
+    finally {
+      lock.unlock();
+    }
+
+    destroy(pooled);
+  }
+
+  private void destroy(PooledConnection pooled) {
+    try {
+      pooled.physical.close();
+    }
+    catch(SQLException e) {
+      /* The connection is being thrown away, so there is nothing further to do. */
+    }
+
+    lock.lock();
+    try {
+      destroyedCount++;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Runs periodically on the housekeeping thread. Closes connections that have been idle too long,
+   * tops the pool back up to its minimum size and reports connections that look leaked.
+   */
+  private void housekeep() {
+    List<PooledConnection> expired = new ArrayList<>();
+    List<PooledConnection> leaked = new ArrayList<>();
+    int missing;
+    long now = System.nanoTime();
+
+    lock.lock();
+    try {
+      if(closed) {
+        return;
+      }
+
+      if(settings.idleTimeoutMillis() > 0) {
+        long idleLimit = TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMillis());
+        Iterator<PooledConnection> it = idle.descendingIterator();
+
+        while(it.hasNext() && total - expired.size() > settings.minSize()) {
+          PooledConnection pooled = it.next();
+
+          if(now - pooled.lastReturned > idleLimit) {
+            it.remove();
+            expired.add(pooled);
+          }
+        }
+
+        total -= expired.size();
+      }
+
+      if(settings.leakThresholdMillis() > 0) {
+        long leakLimit = TimeUnit.MILLISECONDS.toNanos(settings.leakThresholdMillis());
+
+        for(PooledConnection pooled : inUse) {
+          if(!pooled.leakReported && now - pooled.borrowedAt > leakLimit) {
+            pooled.leakReported = true;
+            leakCount++;
+            leaked.add(pooled);
+          }
+        }
+      }
+
+      missing = settings.minSize() - total;
+      total += Math.max(missing, 0);
+    }
+    finally {
+      lock.unlock();
+    }
+
+    expired.forEach(this::destroy);
+
+    for(PooledConnection pooled : leaked) {
+      System.err.println("Possible connection leak: connection held for more than "
+          + settings.leakThresholdMillis() + " ms.");
+
+      if(pooled.borrower != null) {
+        pooled.borrower.printStackTrace();
+      }
+    }
+
+    for(int i = 0; i < missing; i++) {
+      try {
+        PooledConnection pooled = openPhysical();
+
+        lock.lock();
+        try {
+          pooled.lastReturned = System.nanoTime();
+          idle.addLast(pooled);
+          available.signal();
+        }
+        finally {
+          lock.unlock();
+        }
+      }
+      catch(DbException e) {
+        /* openPhysical() has already released the reserved slots for this attempt. */
+        lock.lock();
+        try {
+          total -= missing - i - 1;
+        }
+        finally {
+          lock.unlock();
+        }
+        break;
+      }
+    }
+  }
+
+  private String describe() {
+    return "Pool: total=" + total + ", idle=" + idle.size() + ", active=" + inUse.size()
+        + ", waiting=" + waiting + ", max=" + settings.maxSize();
+  }
+
+  private static long housekeepingPeriod(Settings settings) {
+    long period = 30_000;
+
+    if(settings.idleTimeoutMillis() > 0) {
+      period = Math.min(period, settings.idleTimeoutMillis() / 2);
+    }
+
+    if(settings.leakThresholdMillis() > 0) {
+      period = Math.min(period, settings.leakThresholdMillis() / 2);
+    }
+
+    return Math.max(period, 100);
+  }
+
+  /**
+   * A physical connection owned by the pool together with its bookkeeping.
+   */
+  private class PooledConnection {
+    private final Connection physical;
+    private final StatementCache statements;
+    private long lastReturned = System.nanoTime();
+    private long borrowedAt;
+    private Throwable borrower;
+    private boolean leakReported;
+
+    PooledConnection(Connection physical) {
+      this.physical = physical;
+      this.statements = settings.statementCacheSize() > 0
+          ? new StatementCache(physical, settings.statementCacheSize(), statementHits,
+              statementMisses, statementEvictions)
+          : null;
+    }
+
+    /**
+     * Creates the connection handle given to a borrower. Each loan gets its own handle so that a
+     * stale reference kept after close() cannot touch the physical connection once it has been
+     * lent to someone else.
+     */
+    Connection newHandle() {
+      InvocationHandler handler = new InvocationHandler() {
+        private boolean handleClosed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+          switch(method.getName()) {
+            case "close":
+              if(!handleClosed) {
+                handleClosed = true;
+                release(PooledConnection.this);
+              }
+              return null;
+
+            case "isClosed":
+              return handleClosed || physical.isClosed();
+
+            case "equals":
+              return proxy == args[0];
+
+            case "hashCode":
+              return System.identityHashCode(proxy);
+
+            case "toString":
+              return "Pooled[" + physical + "]";
+
+            default:
+              if(handleClosed) {
+                throw new SQLException("Connection has already been returned to the pool.");
+              }
+
+              if(statements != null && method.getName().equals("prepareStatement")) {
+                PreparedStatement cached = statements.prepare((Connection)proxy, args);
+
+                if(cached != null) {
+                  return cached;
+                }
+              }
+
+              try {
+                return method.invoke(physical, args);
+              }
+              catch(InvocationTargetException e) {
+                throw e.getCause();
+              }
+          }
+        }
+      };
+
+      return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[] {Connection.class}, handler);
+    }
+  }
+}
@@ -4,6 +4,8 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import projects.exception.DbException;
+import projects.metrics.DaoMetrics;
+import projects.metrics.SlowQueryLog;
 
 public class DbConnection {
   private static String HOST = "localhost";
@@ -12,9 +14,91 @@ public class DbConnection {
   private static String SCHEMA = "projects";
   private static String USER = "projects";
 
+  /*
+   * Pool settings. Each can be overridden with a system property, e.g.
+   * -Dprojects.pool.maxSize=20.
+   */
+  private static int MIN_POOL_SIZE = Integer.getInteger("projects.pool.minSize", 2);
+  private static int MAX_POOL_SIZE = Integer.getInteger("projects.pool.maxSize", 10);
+  private static long ACQUIRE_TIMEOUT_MS = Long.getLong("projects.pool.acquireTimeoutMs", 30_000);
+  private static long IDLE_TIMEOUT_MS = Long.getLong("projects.pool.idleTimeoutMs", 600_000);
+  private static long VALIDATION_IDLE_MS = Long.getLong("projects.pool.validationIdleMs", 500);
+  private static long LEAK_THRESHOLD_MS = Long.getLong("projects.pool.leakThresholdMs", 60_000);
+  private static int STATEMENT_CACHE_SIZE = Integer.getInteger("projects.pool.statementCacheSize",
+      128);
+
+  private static volatile ConnectionPool pool;
+
+  /**
+   * Borrows a connection from the connection pool. Closing the connection returns it to the pool.
+   * While {@link DaoMetrics} is recording or the {@link SlowQueryLog} is on, the connection is
+   * instrumented and the wait for it is timed.
+   *
+   * @return A pooled connection.
+   * @throws DbException Thrown if a connection cannot be obtained.
+   */
   public static Connection getConnection() {
-    String uri = String.format("jdbc:mysql://%s:%d/%s?user=%s&password=%s", HOST, PORT, SCHEMA,
-        USER, PASSWORD);
+    if(!DaoMetrics.isRecording() && !SlowQueryLog.isEnabled()) {
+      return getPool().getConnection();
+    }
+
+    long start = System.nanoTime();
+    Connection conn = getPool().getConnection();
+
+    return DaoMetrics.instrument(conn, System.nanoTime() - start);
+  }
+
+  /**
+   * @return The current connection pool counters.
+   */
+  public static ConnectionPool.Stats getPoolStats() {
+    return getPool().getStats();
+  }
+
+  /**
+   * @return The maximum number of connections the pool will open.
+   */
+  public static int getMaxPoolSize() {
+    return MAX_POOL_SIZE;
+  }
+
+  private static ConnectionPool getPool() {
+    ConnectionPool result = pool;
+
+    if(result == null) {
+      synchronized(DbConnection.class) {
+        result = pool;
+
+        if(result == null) {
+          ConnectionPool.Settings settings = new ConnectionPool.Settings(MIN_POOL_SIZE,
+              MAX_POOL_SIZE, ACQUIRE_TIMEOUT_MS, IDLE_TIMEOUT_MS, VALIDATION_IDLE_MS,
+              LEAK_THRESHOLD_MS, STATEMENT_CACHE_SIZE);
+
+          pool = result = new ConnectionPool(DbConnection::openConnection, settings);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Opens a new physical connection. Only the pool calls this. The JDBC URL can be replaced with
+   * the projects.db.url system property, for example to point the DAO at a test database.
+   *
+   * Statements are prepared on the server (useServerPrepStmts) so MySQL parses and plans them once
+   * per connection. The pool's statement cache keeps them open between calls, so the driver's own
+   * statement cache (cachePrepStmts) is left off.
+   */
+  private static Connection openConnection() throws SQLException {
+    String uri = System.getProperty("projects.db.url");
+
+    if(uri == null) {
+      uri = String.format(
+          "jdbc:mysql://%s:%d/%s?user=%s&password=%s&allowMultiQueries=true"
+              + "&rewriteBatchedStatements=true&useServerPrepStmts=true",
+          HOST, PORT, SCHEMA, USER, PASSWORD);
+    }
 
     try {
       Connection conn = DriverManager.getConnection(uri);
@@ -22,7 +106,7 @@ public class DbConnection {
       return conn;
     } catch (SQLException e) {
       System.out.println("Unable to get connection at " + uri);
-      throw new DbException("Unable to get connection at \" + uri");
+      throw new DbException("Unable to get connection at " + uri, e);
     }
   }
 }
@@ -0,0 +1,54 @@
+package projects.dao;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Says which child collections of a project are loaded with the project and which are left to load
+ * on first access. Use {@link #EAGER} for a project whose children will all be read, {@link #LAZY}
+ * for a project of which only the name and other columns are needed, or {@link #eager(Child...)}
+ * for anything in between.
+ */
+public final class FetchPlan {
+
+	/**
+	 * The child collections of a project.
+	 */
+	public enum Child {
+		MATERIALS, STEPS, CATEGORIES
+	}
+
+	/** Load every child collection with the project. */
+	public static final FetchPlan EAGER = new FetchPlan(EnumSet.allOf(Child.class));
+
+	/** Load only the project row; children are loaded when first accessed. */
+	public static final FetchPlan LAZY = new FetchPlan(EnumSet.noneOf(Child.class));
+
+	private final Set<Child> eagerChildren;
+
+	private FetchPlan(Set<Child> eagerChildren) {
+		this.eagerChildren = eagerChildren;
+	}
+
+	/**
+	 * @param children the child collections to load with the project. The rest load lazily.
+	 * @return the fetch plan
+	 */
+	public static FetchPlan eager(Child... children) {
+		EnumSet<Child> eagerChildren = EnumSet.noneOf(Child.class);
+
+		for (Child child : children) {
+			eagerChildren.add(child);
+		}
+
+		return new FetchPlan(eagerChildren);
+	}
+
+	public boolean isEager(Child child) {
+		return eagerChildren.contains(child);
+	}
+
+	public boolean isFullyEager() {
+		return eagerChildren.size() == Child.values().length;
+	}
+}
@@ -0,0 +1,44 @@
+package projects.dao;
+
+/**
+ * How {@link ProjectDao} loads a project together with its materials, steps and categories.
+ */
+public enum FetchStrategy {
+	/**
+	 * All four queries are sent as one multi-statement request and read back as consecutive result
+	 * sets, so the load costs a single round trip. Requires allowMultiQueries on the connection.
+	 */
+	MULTI_RESULT_SET,
+
+	/**
+	 * The project row and each child collection are read with separate queries, one after the
+	 * other, on the same connection and in one transaction.
+	 */
+	SEQUENTIAL,
+
+	/**
+	 * The project row is read first, then the three child collections are read concurrently on
+	 * separate pooled connections, so the load takes about as long as the slowest child query.
+	 * Each query is a separate autocommit statement, so the four reads don't share a snapshot and a
+	 * concurrent write can be seen by some of them and not others. Never chosen automatically; it
+	 * must be requested. A load holds up to three pooled connections at once.
+	 */
+	PARALLEL(3);
+
+	private final int maxConnections;
+
+	FetchStrategy() {
+		this(1);
+	}
+
+	FetchStrategy(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * @return the largest number of pooled connections one load holds at the same time
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+}
@@ -1,104 +1,1076 @@
 package projects.dao;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedList;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import projects.entity.Category;
 import projects.entity.Material;
 import projects.entity.Project;
+import projects.entity.ProjectColumn;
+import projects.entity.ProjectPage;
+import projects.entity.ProjectSummary;
 import projects.entity.Step;
 import projects.exception.DbException;
+import projects.exception.OptimisticLockException;
 import util.DaoBase;
 
 public class ProjectDao extends DaoBase {
-	private static final String CATEGORY_TABLE = "category";
 	private static final String MATERIAL_TABLE = "material";
 	private static final String PROJECT_TABLE = "project";
 	private static final String PROJECT_CATEGORY_TABLE = "project_category";
 	private static final String STEP_TABLE = "step";
 
+	/** The number of project IDs placed in one IN list by {@link #fetchProjectsByIds(Collection, int)}. */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	/** The number of projects written per transaction by {@link #insertProjects(List, int)}. */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	private static final int STREAM_FETCH_SIZE = 1000;
+
+	private static final String VERSION_COLUMN = "version";
+
+	/*
+	 * The SQL is built once. Executing the same text every time also lets the connection pool's
+	 * statement cache hand back the statement prepared by an earlier call.
+	 */
+	// @formatter:off
+	private static final String INSERT_PROJECT_SQL = ""
+			+ "INSERT INTO " + PROJECT_TABLE + " "
+			+ "(project_name, estimated_hours, actual_hours, difficulty, notes) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?, ?)";
+	private static final String INSERT_MATERIAL_SQL =
+			"INSERT INTO " + MATERIAL_TABLE + " (project_id, material_name, num_required, cost) VALUES (?, ?, ?, ?)";
+	private static final String INSERT_STEP_SQL =
+			"INSERT INTO " + STEP_TABLE + " (project_id, step_text, step_order) VALUES (?, ?, ?)";
+	private static final String INSERT_PROJECT_CATEGORY_SQL =
+			"INSERT INTO " + PROJECT_CATEGORY_TABLE + " (project_id, category_id) VALUES (?, ?)";
+	private static final String UPDATE_STEP_ORDER_SQL =
+			"UPDATE " + STEP_TABLE + " SET step_order = ? WHERE step_id = ? AND project_id = ?";
+	private static final String DELETE_STEP_SQL =
+			"DELETE FROM " + STEP_TABLE + " WHERE step_id = ? AND project_id = ?";
+	private static final String FETCH_ALL_PROJECTS_SQL =
+			"SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name";
+	private static final String FETCH_PROJECT_SUMMARIES_SQL =
+			"SELECT project_id, project_name FROM " + PROJECT_TABLE + " ORDER BY project_name";
+	private static final String FETCH_FIRST_PAGE_SQL = ""
+			+ "SELECT * FROM " + PROJECT_TABLE + " "
+			+ "ORDER BY project_name, project_id "
+			+ "LIMIT ?";
+	private static final String FETCH_NEXT_PAGE_SQL = ""
+			+ "SELECT * FROM " + PROJECT_TABLE + " "
+			+ "WHERE project_name > ? OR (project_name = ? AND project_id > ?) "
+			+ "ORDER BY project_name, project_id "
+			+ "LIMIT ?";
+	private static final String FETCH_PROJECT_SQL =
+			"SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+	private static final String FETCH_MATERIALS_SQL =
+			"SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ?";
+	private static final String FETCH_STEPS_SQL =
+			"SELECT * FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order";
+	private static final String FETCH_CATEGORY_IDS_SQL =
+			"SELECT category_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id = ?";
+	private static final String FETCH_AGGREGATE_SQL = ""
+			+ FETCH_PROJECT_SQL + "; "
+			+ FETCH_MATERIALS_SQL + "; "
+			+ FETCH_STEPS_SQL + "; "
+			+ FETCH_CATEGORY_IDS_SQL;
+	private static final String PROJECT_EXISTS_SQL =
+			"SELECT 1 FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+	private static final String DELETE_PROJECT_SQL =
+			"DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+	// @formatter:on
+
+	/**
+	 * The four IN-list queries of {@link #fetchProjectBatch(Connection, List)} for one list size.
+	 */
+	private record BatchSql(int slots, String projects, String materials, String steps, String categories) {
+		// @formatter:off
+		BatchSql(int slots, String inList) {
+			this(slots,
+					"SELECT * FROM " + PROJECT_TABLE + " WHERE project_id IN (" + inList + ")",
+					"SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id IN (" + inList + ")",
+					"SELECT * FROM " + STEP_TABLE + " WHERE project_id IN (" + inList + ") ORDER BY project_id, step_order",
+					"SELECT project_id, category_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id IN (" + inList + ")");
+		}
+		// @formatter:on
+	}
+
+	/** Batch queries keyed by IN-list size. Sizes are rounded up to a power of two, so there are few. */
+	private static final Map<Integer, BatchSql> BATCH_SQL = new ConcurrentHashMap<>();
+
+	/** Runs the child queries of {@link FetchStrategy#PARALLEL} loads, one virtual thread each. */
+	private static final ExecutorService CHILD_LOADER = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final CategoryDictionary categoryDictionary = new CategoryDictionary();
+	private final StepOrdering stepOrdering = new StepOrdering();
+
+	// Set -Dprojects.dao.multiResultSets=false for databases that can't return several result sets
+	// from one statement.
+	private volatile boolean multiResultSetSupported = Boolean
+			.parseBoolean(System.getProperty("projects.dao.multiResultSets", "true"));
+
+	/**
+	 * @return the in-memory category dictionary used to resolve project categories
+	 */
+	public CategoryDictionary getCategoryDictionary() {
+		return categoryDictionary;
+	}
+
+	/**
+	 * The statements covered by {@link QueryPlanReport}, with representative parameter values. The
+	 * IN-list loads are explained with a single ID; longer lists produce the same plan.
+	 */
+	static List<QueryPlanReport.Query> explainableQueries() {
+		BatchSql batch = batchSql(1);
+
+		//@formatter:off
+		return List.of(
+			new QueryPlanReport.Query("fetchAllProjects", FETCH_ALL_PROJECTS_SQL, List.of()),
+			new QueryPlanReport.Query("fetchProjectSummaries", FETCH_PROJECT_SUMMARIES_SQL, List.of()),
+			new QueryPlanReport.Query("fetchProjectPage", FETCH_NEXT_PAGE_SQL, List.of("M", "M", 1, 20)),
+			new QueryPlanReport.Query("fetchProjectById", FETCH_PROJECT_SQL, List.of(1)),
+			new QueryPlanReport.Query("fetchMaterialsForProject", FETCH_MATERIALS_SQL, List.of(1)),
+			new QueryPlanReport.Query("fetchStepsForProject", FETCH_STEPS_SQL, List.of(1)),
+			new QueryPlanReport.Query("fetchCategoriesForProject", FETCH_CATEGORY_IDS_SQL, List.of(1)),
+			new QueryPlanReport.Query("fetchProjectsByIds (materials)", batch.materials(), List.of(1)),
+			new QueryPlanReport.Query("fetchProjectsByIds (steps)", batch.steps(), List.of(1)),
+			new QueryPlanReport.Query("addStepsToProject (next step order)", StepOrdering.MAX_RANK_SQL, List.of(1)),
+			new QueryPlanReport.Query("moveStep (following step order)", StepOrdering.RANK_FOLLOWING_SQL, List.of(1, 1024))
+		);
+		//@formatter:on
+	}
+
+	/**
+	 * Insert a project row into the project table
+	 * 
+	 * @param project the project object to insert
+	 * @return the Project object with the primary key
+	 * @throws DbException Thrown if an error occurs inserting the row
+	 */
+
+	public Project insertProject(Project project) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(INSERT_PROJECT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+				setParameter(stmt, 1, project.getProjectName(), String.class);
+				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+				setParameter(stmt, 5, project.getNotes(), String.class);
+
+				stmt.executeUpdate();
+
+				Integer projectId = getGeneratedId(stmt);
+				commitTransaction(conn);
+
+				project.setProjectId(projectId);
+				project.setVersion(0);
+				project.clearDirtyColumns();
+				return project;
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+
+		}
+	}
+
+	/**
+	 * Insert many projects together with their materials, steps and category links. The projects are
+	 * written in chunks. Each chunk is one transaction in which every table gets a single JDBC batch,
+	 * and the driver rewrites each batch into multi-row INSERT statements. Generated keys are copied
+	 * back into the projects, materials and steps once their chunk has committed; the entities of a
+	 * chunk that fails are left unchanged.
+	 * 
+	 * Steps without a step order are numbered in list order after the largest step order given in
+	 * the same project; two steps of a project may not share a step order. Categories are linked by
+	 * category ID and must already exist.
+	 * 
+	 * @param projects  the projects to insert
+	 * @param chunkSize the number of projects written per transaction
+	 * @return the number of rows written and the rate at which they were written
+	 * @throws DbException Thrown if a chunk fails. Chunks committed before the failure remain.
+	 */
+	public BulkInsertResult insertProjects(List<Project> projects, int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1 but was " + chunkSize);
+		}
+
+		long start = System.nanoTime();
+		long rows = 0;
+
+		try (Connection conn = DbConnection.getConnection()) {
+			for (int from = 0; from < projects.size(); from += chunkSize) {
+				List<Project> chunk = projects.subList(from, Math.min(from + chunkSize, projects.size()));
+
+				startTransaction(conn);
+
+				try {
+					InsertedChunk inserted = insertChunk(conn, chunk);
+
+					commitTransaction(conn);
+
+					inserted.applyKeys();
+					rows += inserted.rows();
+				} catch (Exception e) {
+					rollbackTransaction(conn);
+					throw new DbException("Bulk insert failed after " + from + " projects were committed", e);
+				}
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		return new BulkInsertResult(projects.size(), rows, elapsedMillis);
+	}
+
+	private List<Integer> insertProjectRows(Connection conn, List<Project> projects) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(INSERT_PROJECT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+			for (Project project : projects) {
+				setParameter(stmt, 1, project.getProjectName(), String.class);
+				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+				setParameter(stmt, 5, project.getNotes(), String.class);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+
+			return getGeneratedIds(stmt, projects.size());
+		}
+	}
+
+	/*
+	 * Writes a chunk of new projects and their children without touching the entities. The
+	 * generated keys and step orders are returned so the caller can copy them in after the commit.
+	 */
+	private InsertedChunk insertChunk(Connection conn, List<Project> projects) throws SQLException {
+		List<Integer> projectIds = insertProjectRows(conn, projects);
+
+		int materialCount = countChildren(projects, Project::getMaterials);
+		int stepCount = countChildren(projects, Project::getSteps);
+		List<Material> materials = new ArrayList<>(materialCount);
+		List<Integer> materialProjectIds = new ArrayList<>(materialCount);
+		List<Step> steps = new ArrayList<>(stepCount);
+		List<Integer> stepProjectIds = new ArrayList<>(stepCount);
+		List<Integer> stepOrders = new ArrayList<>(stepCount);
+
+		for (int index = 0; index < projects.size(); index++) {
+			Project project = projects.get(index);
+			Integer projectId = projectIds.get(index);
+
+			for (Material material : project.getMaterials()) {
+				materials.add(material);
+				materialProjectIds.add(projectId);
+			}
+
+			// The projects are new, so a step that carries a step order keeps it and the others follow
+			// in list order.
+			int[] ranks = StepOrdering.ranksForNewSteps(projectId, project.getSteps());
+
+			for (int rank = 0; rank < ranks.length; rank++) {
+				steps.add(project.getSteps().get(rank));
+				stepProjectIds.add(projectId);
+				stepOrders.add(ranks[rank]);
+			}
+		}
+
+		List<Integer> materialIds = insertMaterials(conn, materials, materialProjectIds);
+		List<Integer> stepIds = insertSteps(conn, steps, stepProjectIds, stepOrders);
+		int links = insertCategoryRows(conn, projects, projectIds);
+
+		return new InsertedChunk(projects, projectIds, materials, materialProjectIds, materialIds, steps, stepProjectIds,
+				stepOrders, stepIds, links);
+	}
+
+	/**
+	 * The keys and step orders written for a chunk of projects, in the order of the entity lists.
+	 */
+	private record InsertedChunk(List<Project> projects, List<Integer> projectIds, List<Material> materials,
+			List<Integer> materialProjectIds, List<Integer> materialIds, List<Step> steps, List<Integer> stepProjectIds,
+			List<Integer> stepOrders, List<Integer> stepIds, int links) {
+
+		int rows() {
+			return projects.size() + materials.size() + steps.size() + links;
+		}
+
+		/*
+		 * Copies the keys into the entities. Call only after the chunk has committed.
+		 */
+		void applyKeys() {
+			for (int index = 0; index < projects.size(); index++) {
+				Project project = projects.get(index);
+
+				project.setProjectId(projectIds.get(index));
+				project.setVersion(0);
+				project.clearDirtyColumns();
+			}
+
+			for (int index = 0; index < materials.size(); index++) {
+				Material material = materials.get(index);
+
+				material.setProjectId(materialProjectIds.get(index));
+				material.setMaterialId(materialIds.get(index));
+			}
+
+			for (int index = 0; index < steps.size(); index++) {
+				Step step = steps.get(index);
+
+				step.setProjectId(stepProjectIds.get(index));
+				step.setStepOrder(stepOrders.get(index));
+				step.setStepId(stepIds.get(index));
+			}
+		}
+	}
+
+	/*
+	 * Inserts the materials, each under the project ID at the same position, and returns their
+	 * generated IDs. The materials themselves are not changed.
+	 */
+	private List<Integer> insertMaterials(Connection conn, List<Material> materials, List<Integer> projectIds)
+			throws SQLException {
+		if (materials.isEmpty()) {
+			return List.of();
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(INSERT_MATERIAL_SQL, Statement.RETURN_GENERATED_KEYS)) {
+			for (int index = 0; index < materials.size(); index++) {
+				Material material = materials.get(index);
+
+				setParameter(stmt, 1, projectIds.get(index), Integer.class);
+				setParameter(stmt, 2, material.getMaterialName(), String.class);
+				setParameter(stmt, 3, material.getNumRequired(), Integer.class);
+				setParameter(stmt, 4, material.getCost(), BigDecimal.class);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+
+			return getGeneratedIds(stmt, materials.size());
+		}
+	}
+
+	/*
+	 * Inserts the steps with the project ID and step order at the same position and returns their
+	 * generated IDs. The steps themselves are not changed.
+	 */
+	private List<Integer> insertSteps(Connection conn, List<Step> steps, List<Integer> projectIds,
+			List<Integer> stepOrders) throws SQLException {
+		if (steps.isEmpty()) {
+			return List.of();
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(INSERT_STEP_SQL, Statement.RETURN_GENERATED_KEYS)) {
+			for (int index = 0; index < steps.size(); index++) {
+				setParameter(stmt, 1, projectIds.get(index), Integer.class);
+				setParameter(stmt, 2, steps.get(index).getStepText(), String.class);
+				setParameter(stmt, 3, stepOrders.get(index), Integer.class);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+
+			return getGeneratedIds(stmt, steps.size());
+		}
+	}
+
+	private static int countChildren(List<Project> projects, Function<Project, List<?>> children) {
+		int count = 0;
+
+		for (Project project : projects) {
+			count += children.apply(project).size();
+		}
+
+		return count;
+	}
+
+	private int insertCategoryRows(Connection conn, List<Project> projects, List<Integer> projectIds)
+			throws SQLException {
+		Map<Integer, List<Category>> categoriesByProject = new LinkedHashMap<>();
+
+		for (int index = 0; index < projects.size(); index++) {
+			categoriesByProject.put(projectIds.get(index), projects.get(index).getCategories());
+		}
+
+		return insertCategoryLinks(conn, categoriesByProject);
+	}
+
+	private int insertCategoryLinks(Connection conn, Map<Integer, List<Category>> categoriesByProject)
+			throws SQLException {
+		int count = 0;
+
+		try (PreparedStatement stmt = conn.prepareStatement(INSERT_PROJECT_CATEGORY_SQL)) {
+			for (Map.Entry<Integer, List<Category>> entry : categoriesByProject.entrySet()) {
+				for (Category category : entry.getValue()) {
+					setParameter(stmt, 1, entry.getKey(), Integer.class);
+					setParameter(stmt, 2, category.getCategoryId(), Integer.class);
+					stmt.addBatch();
+					count++;
+				}
+			}
+
+			if (count > 0) {
+				stmt.executeBatch();
+			}
+
+			return count;
+		}
+	}
+
+	/**
+	 * Insert a project together with its materials, steps and category links in one transaction.
+	 * Each table is written with a single batch, so a project with 200 steps costs one statement per
+	 * table rather than one per row. Generated keys are copied back into the entities after the
+	 * commit, so a failed insert leaves them unchanged. Steps without
+	 * a step order are numbered in list order after the largest step order given.
+	 * 
+	 * @param project the project to insert
+	 * @return the project with its primary key and the keys of its children
+	 * @throws DbException Thrown if an error occurs. Nothing is written in that case.
+	 */
+	public Project insertProjectAggregate(Project project) {
+		List<Project> projects = List.of(project);
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				InsertedChunk inserted = insertChunk(conn, projects);
+
+				commitTransaction(conn);
+
+				inserted.applyKeys();
+				return project;
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Add materials to an existing project with a single batched insert.
+	 * 
+	 * @param projectId the project to add to
+	 * @param materials the materials. Their project IDs and material IDs are filled in after the
+	 *                  commit.
+	 * @throws DbException Thrown if an error occurs. Nothing is written in that case.
+	 */
+	public void addMaterialsToProject(Integer projectId, List<Material> materials) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				List<Integer> ids = insertMaterials(conn, materials, Collections.nCopies(materials.size(), projectId));
+				commitTransaction(conn);
+
+				for (int index = 0; index < materials.size(); index++) {
+					materials.get(index).setProjectId(projectId);
+					materials.get(index).setMaterialId(ids.get(index));
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Append steps to an existing project with a single batched insert. The project row is locked
+	 * while the next step order is read, so concurrent appends to the same project can't produce
+	 * duplicate step orders. The new steps are ranked in list order after the existing ones.
+	 * 
+	 * @param projectId the project to add to
+	 * @param steps     the steps. Their project IDs, step orders and step IDs are filled in after the
+	 *                  commit.
+	 * @throws DbException Thrown if an error occurs. Nothing is written in that case.
+	 */
+	public void addStepsToProject(Integer projectId, List<Step> steps) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				if (!stepOrdering.lockProject(conn, projectId)) {
+					throw new SQLException("Project with ID=" + projectId + " does not exist.");
+				}
+
+				int firstRank = stepOrdering.nextRank(conn, projectId, steps.size());
+				List<Integer> stepOrders = new ArrayList<>(steps.size());
+
+				for (int index = 0; index < steps.size(); index++) {
+					stepOrders.add(firstRank + index * StepOrdering.GAP);
+				}
+
+				List<Integer> ids = insertSteps(conn, steps, Collections.nCopies(steps.size(), projectId), stepOrders);
+				commitTransaction(conn);
+
+				for (int index = 0; index < steps.size(); index++) {
+					Step step = steps.get(index);
+
+					step.setProjectId(projectId);
+					step.setStepOrder(stepOrders.get(index));
+					step.setStepId(ids.get(index));
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Move a step to just after another step of the same project. Only the moved step's row is
+	 * updated unless its new neighbours have no room between them, in which case the project's
+	 * steps are renumbered first.
+	 * 
+	 * @param projectId   the project that owns both steps
+	 * @param stepId      the step to move
+	 * @param afterStepId the step to place it after, or null to make it the first step
+	 * @return true if the step was moved, false if the project or step does not exist
+	 * @throws DbException Thrown if an error occurs, e.g. afterStepId is not a step of the project.
+	 */
+	public boolean moveStep(Integer projectId, Integer stepId, Integer afterStepId) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				if (!stepOrdering.lockProject(conn, projectId)) {
+					commitTransaction(conn);
+					return false;
+				}
+
+				if (stepId.equals(afterStepId)) {
+					boolean exists = stepOrdering.hasStep(conn, projectId, stepId);
+					commitTransaction(conn);
+					return exists;
+				}
+
+				int stepOrder = stepOrdering.rankAfter(conn, projectId, afterStepId);
+
+				try (PreparedStatement stmt = conn.prepareStatement(UPDATE_STEP_ORDER_SQL)) {
+					setParameter(stmt, 1, stepOrder, Integer.class);
+					setParameter(stmt, 2, stepId, Integer.class);
+					setParameter(stmt, 3, projectId, Integer.class);
+
+					boolean moved = stmt.executeUpdate() == 1;
+					commitTransaction(conn);
+					return moved;
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Delete a step. The remaining steps keep their step orders; the gap it leaves is reused by
+	 * later moves.
+	 * 
+	 * @param projectId the project that owns the step
+	 * @param stepId    the step to delete
+	 * @return true if the step was deleted, false if the project or step does not exist
+	 * @throws DbException Thrown if an error occurs.
+	 */
+	public boolean deleteStep(Integer projectId, Integer stepId) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(DELETE_STEP_SQL)) {
+				if (!stepOrdering.lockProject(conn, projectId)) {
+					commitTransaction(conn);
+					return false;
+				}
+
+				setParameter(stmt, 1, stepId, Integer.class);
+				setParameter(stmt, 2, projectId, Integer.class);
+
+				boolean deleted = stmt.executeUpdate() == 1;
+				commitTransaction(conn);
+				return deleted;
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Link existing categories to an existing project with a single batched insert.
+	 * 
+	 * @param projectId  the project to link
+	 * @param categories the categories, identified by category ID
+	 * @throws DbException Thrown if an error occurs. Nothing is written in that case.
+	 */
+	public void addCategoriesToProject(Integer projectId, List<Category> categories) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				insertCategoryLinks(conn, Map.of(projectId, categories));
+				commitTransaction(conn);
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	public List<Project> fetchAllProjects() {
+		// Write the SQL statement to return all projects not including materials,
+		// steps, or categories. Order the results by project name.
+		String sql = FETCH_ALL_PROJECTS_SQL;
+		// Add a try-with-resource statement to obtain the Connection object.
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				try (ResultSet rs = stmt.executeQuery()) { // executes the SQL statement and stores rows from db in
+															// ResultSet i.e gets the data
+					List<Project> projects = new ArrayList<>();
+					RowExtractor<Project> rows = extractor(rs, Project.class);
+
+					while (rs.next()) {
+						projects.add(rows.extract(rs));
+					}
+
+					return List.copyOf(projects);
+
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn); // Inside the try block, start a new transaction.
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Fetch the ID and name of every project, ordered by project name. Only those two columns are
+	 * read, which keeps the notes column off the wire for listings.
+	 * 
+	 * @return an unmodifiable list of the project summaries
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public List<ProjectSummary> fetchProjectSummaries() {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(FETCH_PROJECT_SUMMARIES_SQL)) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<ProjectSummary> summaries = new ArrayList<>();
+
+					while (rs.next()) {
+						summaries.add(new ProjectSummary(rs.getInt(1), rs.getString(2)));
+					}
+
+					commitTransaction(conn);
+
+					return List.copyOf(summaries);
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Fetch all projects, ordered by project name, reading only the requested columns. The project ID
+	 * and version are always read, so a project loaded this way can be passed to
+	 * {@link #modifyProjectDetails(Project)} with its optimistic lock check intact. Fields for columns
+	 * that were not requested are left null.
+	 * 
+	 * @param columns the columns to read
+	 * @return an unmodifiable list of the projects, without materials, steps or categories
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public List<Project> fetchAllProjects(Set<ProjectColumn> columns) {
+		StringJoiner selectList = new StringJoiner(", ");
+		selectList.add(ProjectColumn.PROJECT_ID.getColumnName());
+		selectList.add(VERSION_COLUMN);
+
+		for (ProjectColumn column : columns) {
+			if (column != ProjectColumn.PROJECT_ID) {
+				selectList.add(column.getColumnName());
+			}
+		}
+
+		String sql = "SELECT " + selectList + " FROM " + PROJECT_TABLE + " ORDER BY project_name";
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<Project> projects = new ArrayList<>();
+					RowExtractor<Project> rows = extractor(rs, Project.class);
+
+					while (rs.next()) {
+						projects.add(rows.extract(rs));
+					}
+
+					commitTransaction(conn);
+
+					return List.copyOf(projects);
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Fetch one page of projects ordered by project name and then project ID. Pages are located with
+	 * a keyset (seek) predicate on (project_name, project_id) rather than OFFSET, so with the
+	 * supporting index every page costs the same as the first.
+	 * 
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize  the maximum number of projects on the page
+	 * @return the page and the token for the next page, if there is one
+	 * @throws DbException Thrown if the token is malformed or an error occurs reading the rows
+	 */
+	public ProjectPage fetchProjectPage(String pageToken, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be at least 1 but was " + pageSize);
+		}
+
+		PageKey after = Objects.isNull(pageToken) ? null : PageKey.decode(pageToken);
+
+		String sql = Objects.isNull(after) ? FETCH_FIRST_PAGE_SQL : FETCH_NEXT_PAGE_SQL;
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				int index = 1;
+
+				if (Objects.nonNull(after)) {
+					setParameter(stmt, index++, after.projectName(), String.class);
+					setParameter(stmt, index++, after.projectName(), String.class);
+					setParameter(stmt, index++, after.projectId(), Integer.class);
+				}
+
+				// Read one extra row to find out whether there is a following page.
+				setParameter(stmt, index, pageSize + 1, Integer.class);
+
+				List<Project> projects = new ArrayList<>(pageSize + 1);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					RowExtractor<Project> rows = extractor(rs, Project.class);
+
+					while (rs.next()) {
+						projects.add(rows.extract(rs));
+					}
+				}
+
+				commitTransaction(conn);
+
+				String nextPageToken = null;
+
+				if (projects.size() > pageSize) {
+					projects.remove(pageSize);
+					Project last = projects.get(pageSize - 1);
+					nextPageToken = new PageKey(last.getProjectName(), last.getProjectId()).encode();
+				}
+
+				return new ProjectPage(List.copyOf(projects), nextPageToken);
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * The sort key of the last row on a page. It is handed to callers as an opaque, URL-safe token.
+	 */
+	private record PageKey(String projectName, Integer projectId) {
+
+		String encode() {
+			String key = projectId + ":" + projectName;
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+		}
+
+		static PageKey decode(String token) {
+			try {
+				String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+				int separator = key.indexOf(':');
+
+				return new PageKey(key.substring(separator + 1), Integer.valueOf(key.substring(0, separator)));
+			} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+				throw new DbException("Invalid page token: " + token, e);
+			}
+		}
+	}
+
+	/**
+	 * Stream every project row, ordered by project name, without holding the whole table in memory.
+	 * The MySQL driver is asked to stream rows (a fetch size of Integer.MIN_VALUE), so only the
+	 * current row is materialized. Materials, steps and categories are not loaded.
+	 * 
+	 * The stream holds a pooled connection until it is closed, so it must be used in a
+	 * try-with-resources statement:
+	 * 
+	 * <pre>
+	 * try (Stream&lt;Project&gt; projects = projectDao.streamAllProjects()) {
+	 * 	projects.forEach(...);
+	 * }
+	 * </pre>
+	 * 
+	 * @return a lazily populated stream of projects
+	 * @throws DbException Thrown if the query cannot be started or a row cannot be read
+	 */
+	public Stream<Project> streamAllProjects() {
+		String sql = FETCH_ALL_PROJECTS_SQL;
+
+		Connection conn = DbConnection.getConnection();
+		PreparedStatement stmt = null;
+
+		try {
+			stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			try {
+				stmt.setFetchSize(Integer.MIN_VALUE);
+			} catch (SQLException e) {
+				// Row-by-row streaming is a MySQL driver convention. Other drivers reject the negative
+				// fetch size, so fall back to fetching in fixed-size blocks.
+				stmt.setFetchSize(STREAM_FETCH_SIZE);
+			}
+
+			ResultSet rs = stmt.executeQuery();
+			Runnable closer = closeAll(rs, stmt, conn);
+			RowExtractor<Project> projects = extractor(rs, Project.class);
+
+			Spliterator<Project> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+					Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(Consumer<? super Project> action) {
+					try {
+						if (!rs.next()) {
+							return false;
+						}
+
+						action.accept(projects.extract(rs));
+						return true;
+					} catch (SQLException e) {
+						throw new DbException(e);
+					}
+				}
+			};
+
+			return StreamSupport.stream(rows, false).onClose(closer);
+		} catch (SQLException e) {
+			closeAll(null, stmt, conn).run();
+			throw new DbException(e);
+		}
+	}
+
 	/**
-	 * Insert a project row into the project table
+	 * Pass every project row, ordered by project name, to the given consumer. Rows are streamed from
+	 * the server one at a time and the connection is released when the method returns.
 	 * 
-	 * @param project the project object to insert
-	 * @return the Project object with the primary key
-	 * @throws DbException Thrown if an error occurs inserting the row
+	 * @param consumer receives each project. Materials, steps and categories are not loaded.
+	 * @throws DbException Thrown if an error occurs reading the rows
 	 */
+	public void forEachProject(Consumer<Project> consumer) {
+		try (Stream<Project> projects = streamAllProjects()) {
+			projects.forEach(consumer);
+		}
+	}
 
-	public Project insertProject(Project project) {
-		// @formatter:off
-	    String sql = ""
-	        + "INSERT INTO " + PROJECT_TABLE + " "
-	        + "(project_name, estimated_hours, actual_hours, difficulty, notes) "
-	        + "VALUES "
-	        + "(?, ?, ?, ?, ?)";
-	    // @formatter:on
+	private Runnable closeAll(AutoCloseable... resources) {
+		return () -> {
+			DbException failure = null;
+
+			for (AutoCloseable resource : resources) {
+				if (Objects.nonNull(resource)) {
+					try {
+						resource.close();
+					} catch (Exception e) {
+						if (Objects.isNull(failure)) {
+							failure = new DbException(e);
+						}
+					}
+				}
+			}
+
+			if (Objects.nonNull(failure)) {
+				throw failure;
+			}
+		};
+	}
+
+	public Optional<Project> fetchProjectById(Integer projectId) {
+		return fetchProjectAggregate(projectId).asOptional();
+	}
+
+	/**
+	 * Load a project, reading only the child collections named in the fetch plan. The remaining
+	 * collections are filled in on first access, each with its own autocommit query on a pooled
+	 * connection, so a lazily loaded collection reflects the database when it is first accessed, not
+	 * when the project was loaded. A fully eager plan is loaded in one round trip like {@link #fetchProjectAggregate(Integer)}.
+	 * 
+	 * @param projectId the ID of the project to load
+	 * @param plan      the child collections to load now
+	 * @return the project, if found
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public Optional<Project> fetchProjectById(Integer projectId, FetchPlan plan) {
+		if (plan.isFullyEager()) {
+			return fetchProjectById(projectId);
+		}
 
 		try (Connection conn = DbConnection.getConnection()) {
 			startTransaction(conn);
 
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
+			try {
+				Project project = fetchProjectRow(conn, projectId);
 
-				stmt.executeUpdate();
+				if (Objects.nonNull(project)) {
+					if (plan.isEager(FetchPlan.Child.MATERIALS)) {
+						project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
+					} else {
+						project.setMaterialsLoader(() -> fetchOnOwnConnection(c -> fetchMaterialsForProject(c, projectId)));
+					}
+
+					if (plan.isEager(FetchPlan.Child.STEPS)) {
+						project.getSteps().addAll(fetchStepsForProject(conn, projectId));
+					} else {
+						project.setStepsLoader(() -> fetchOnOwnConnection(c -> fetchStepsForProject(c, projectId)));
+					}
+
+					if (plan.isEager(FetchPlan.Child.CATEGORIES)) {
+						project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
+					} else {
+						project.setCategoriesLoader(() -> fetchOnOwnConnection(c -> fetchCategoriesForProject(c, projectId)));
+					}
+				}
 
-				Integer projectId = getLastInsertId(conn, PROJECT_TABLE);
 				commitTransaction(conn);
 
-				project.setProjectId(projectId);
-				return project;
+				return Optional.ofNullable(project);
 			} catch (Exception e) {
 				rollbackTransaction(conn);
 				throw new DbException(e);
 			}
 		} catch (SQLException e) {
 			throw new DbException(e);
-
 		}
 	}
 
-	public List<Project> fetchAllProjects() {
-		// Write the SQL statement to return all projects not including materials,
-		// steps, or categories. Order the results by project name.
-		String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name";
-		// Add a try-with-resource statement to obtain the Connection object.
+	/**
+	 * Load a project with its materials, steps and categories. The multi-result-set strategy is
+	 * tried first so that the whole aggregate costs one round trip. If the connection does not
+	 * accept multi-statement requests, the DAO falls back to sequential queries from then on.
+	 * 
+	 * @param projectId the ID of the project to load
+	 * @return the project, if found, and the strategy used to load it
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public AggregateFetch fetchProjectAggregate(Integer projectId) {
+		return fetchProjectAggregate(projectId, FetchStrategy.MULTI_RESULT_SET);
+	}
+
+	/**
+	 * Load a project with its materials, steps and categories using the requested strategy. A
+	 * request for {@link FetchStrategy#MULTI_RESULT_SET} falls back to
+	 * {@link FetchStrategy#SEQUENTIAL} if the connection does not accept multi-statement requests.
+	 * 
+	 * @param projectId the ID of the project to load
+	 * @param strategy  the preferred strategy
+	 * @return the project, if found, and the strategy actually used to load it
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public AggregateFetch fetchProjectAggregate(Integer projectId, FetchStrategy strategy) {
+		if (strategy == FetchStrategy.PARALLEL) {
+			return new AggregateFetch(fetchAggregateInParallel(projectId), FetchStrategy.PARALLEL);
+		}
+
 		try (Connection conn = DbConnection.getConnection()) {
 			startTransaction(conn);
 
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				try (ResultSet rs = stmt.executeQuery()) { // executes the SQL statement and stores rows from db in
-															// ResultSet i.e gets the data
-					List<Project> projects = new LinkedList<>();
+			try {
+				AggregateFetch result = null;
 
-					while (rs.next()) {
-						Project project = new Project();
-
-						project.setActualHours(rs.getBigDecimal("actual_hours"));
-						project.setDifficulty(rs.getObject("difficulty", Integer.class));
-						project.setEstimatedHours(rs.getBigDecimal("estimated_hours"));
-						project.setNotes(rs.getString("notes"));
-						project.setProjectId(rs.getObject("project_id", Integer.class));
-						project.setProjectName(rs.getString("project_name"));
-						projects.add(project);
+				if (strategy == FetchStrategy.MULTI_RESULT_SET && multiResultSetSupported) {
+					try {
+						result = new AggregateFetch(fetchAggregateInOneRoundTrip(conn, projectId),
+								FetchStrategy.MULTI_RESULT_SET);
+					} catch (SQLSyntaxErrorException e) {
+						// The server rejected the multi-statement request, so it was not enabled on this
+						// connection. Don't try it again.
+						multiResultSetSupported = false;
 					}
+				}
 
-					return projects;
-
+				if (Objects.isNull(result)) {
+					result = new AggregateFetch(fetchAggregateSequentially(conn, projectId), FetchStrategy.SEQUENTIAL);
 				}
+
+				commitTransaction(conn);
+
+				return result;
 			} catch (Exception e) {
-				rollbackTransaction(conn); // Inside the try block, start a new transaction.
+				rollbackTransaction(conn);
 				throw new DbException(e);
 			}
 		} catch (SQLException e) {
@@ -106,45 +1078,192 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 
-	public Optional<Project> fetchProjectById(Integer projectId) {
-		// Write the SQL statement to return all columns from the project table in the
-		// row that matches the given projectId.
-		String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
-		// Obtain a Connection object in a try-with-resource statement
+	/**
+	 * Read the project row, then read the three child collections at the same time, each on its own
+	 * pooled connection and virtual thread. The project row's connection is returned to the pool
+	 * before the children are loaded, so one load holds at most three connections.
+	 * 
+	 * The four queries are independent autocommit SELECTs. Each one is consistent in itself, but they
+	 * do not share a snapshot: a write committed while the load is in flight may be visible to some
+	 * of them and not others. Use {@link FetchStrategy#MULTI_RESULT_SET} or
+	 * {@link FetchStrategy#SEQUENTIAL} when the aggregate must be read consistently.
+	 */
+	private Project fetchAggregateInParallel(Integer projectId) {
+		Project project;
+
+		try (Connection conn = DbConnection.getConnection()) {
+			project = fetchProjectRow(conn, projectId);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+
+		if (Objects.isNull(project)) {
+			return null;
+		}
+
+		Future<List<Material>> materials = CHILD_LOADER
+				.submit(() -> fetchOnOwnConnection(conn -> fetchMaterialsForProject(conn, projectId)));
+		Future<List<Step>> steps = CHILD_LOADER.submit(() -> fetchOnOwnConnection(conn -> fetchStepsForProject(conn, projectId)));
+		Future<List<Category>> categories = CHILD_LOADER
+				.submit(() -> fetchOnOwnConnection(conn -> fetchCategoriesForProject(conn, projectId)));
+
+		try {
+			project.getMaterials().addAll(materials.get());
+			project.getSteps().addAll(steps.get());
+			project.getCategories().addAll(categories.get());
+
+			return project;
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof DbException ? (DbException) e.getCause() : new DbException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while loading project " + projectId, e);
+		} finally {
+			// Don't interrupt a query that is running: interrupting a virtual thread blocked in a socket
+			// read closes the socket, and the pool would have to replace the connection. A running
+			// query finishes and returns its connection; one that hasn't started is skipped.
+			materials.cancel(false);
+			steps.cancel(false);
+			categories.cancel(false);
+		}
+	}
+
+	/**
+	 * A child query that runs on a connection supplied by {@link #fetchOnOwnConnection(ChildQuery)}.
+	 */
+	@FunctionalInterface
+	private interface ChildQuery<T> {
+		List<T> fetch(Connection conn) throws SQLException;
+	}
+
+	/**
+	 * Run a single child SELECT on a pooled connection in autocommit mode. No session settings are
+	 * changed, so the query costs one round trip.
+	 */
+	private <T> List<T> fetchOnOwnConnection(ChildQuery<T> query) {
+		try (Connection conn = DbConnection.getConnection()) {
+			return query.fetch(conn);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private Project fetchProjectRow(Connection conn, Integer projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_PROJECT_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? extract(rs, Project.class) : null;
+			}
+		}
+	}
+
+	private Project fetchAggregateSequentially(Connection conn, Integer projectId) throws SQLException {
+		Project project = fetchProjectRow(conn, projectId);
+
+		if (Objects.nonNull(project)) {
+			project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
+			project.getSteps().addAll(fetchStepsForProject(conn, projectId));
+			project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
+		}
+
+		return project;
+	}
+
+	private Project fetchAggregateInOneRoundTrip(Connection conn, Integer projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_AGGREGATE_SQL)) {
+			for (int index = 1; index <= 4; index++) {
+				setParameter(stmt, index, projectId, Integer.class);
+			}
+
+			stmt.execute();
+
+			Project project = null;
+
+			try (ResultSet rs = stmt.getResultSet()) {
+				if (rs.next()) {
+					project = extract(rs, Project.class);
+				}
+			}
+
+			if (Objects.isNull(project)) {
+				return null;
+			}
+
+			readNextResultSet(stmt, project.getMaterials(), Material.class);
+			readNextResultSet(stmt, project.getSteps(), Step.class);
+
+			if (!stmt.getMoreResults()) {
+				throw new SQLException("Expected another result set for Category");
+			}
+
+			try (ResultSet rs = stmt.getResultSet()) {
+				while (rs.next()) {
+					project.getCategories().add(categoryDictionary.resolve(conn, rs.getInt(1)));
+				}
+			}
+
+			return project;
+		}
+	}
+
+	private <T> void readNextResultSet(PreparedStatement stmt, List<T> target, Class<T> classType)
+			throws SQLException {
+		if (!stmt.getMoreResults()) {
+			throw new SQLException("Expected another result set for " + classType.getSimpleName());
+		}
+
+		try (ResultSet rs = stmt.getResultSet()) {
+			RowExtractor<T> rows = extractor(rs, classType);
+
+			while (rs.next()) {
+				target.add(rows.extract(rs));
+			}
+		}
+	}
+
+	/**
+	 * Load full project aggregates for a set of project IDs. The IDs are processed in batches. For each
+	 * batch the projects and each kind of child row are read with a single IN-list query, so a batch
+	 * costs four queries no matter how many projects it holds.
+	 * 
+	 * @param projectIds the IDs of the projects to load. Duplicates are ignored.
+	 * @param batchSize  the maximum number of IDs in one IN list
+	 * @return an unmodifiable list of the projects that exist, in the order their IDs were given
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public List<Project> fetchProjectsByIds(Collection<Integer> projectIds, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1 but was " + batchSize);
+		}
+
+		List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+		List<Project> projects = new ArrayList<>(ids.size());
+
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+
 		try (Connection conn = DbConnection.getConnection()) {
 			startTransaction(conn);
 
 			try {
-				Project project = null; // Inside the try block, create a variable of type Project and set it to null.
-				// Inside the inner try block, obtain a PreparedStatement from the Connection
-				// object in a try-with-resource statement.
-				// Pass the SQL statement in the method call to prepareStatement(). Add the
-				// projectId method parameter as a parameter to the PreparedStatement.
-				try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-					setParameter(stmt, 1, projectId, Integer.class);
-
-					try (ResultSet rs = stmt.executeQuery()) {
-						if (rs.next()) {
-							project = extract(rs, Project.class);
-							// Obtain a ResultSet in a try-with-resource statement.
-							// If the ResultSet has a row in it (rs.next()) set the Project variable to a
-							// new Project object and set all fields from values in the ResultSet.
-							// You can call the extract() method for this.
+				for (int from = 0; from < ids.size(); from += batchSize) {
+					List<Integer> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+					Map<Integer, Project> byId = fetchProjectBatch(conn, batch);
+
+					for (Integer projectId : batch) {
+						Project project = byId.get(projectId);
+
+						if (Objects.nonNull(project)) {
+							projects.add(project);
 						}
 					}
 				}
-				// Below the try-with-resource statement that obtains the PreparedStatement but
-				// inside the try block that manages the rollback,
-				// add three method calls to obtain the list of materials, steps, and categories
-				if (Objects.nonNull(project)) {
-					project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
-					project.getSteps().addAll(fetchStepsForProject(conn, projectId));
-					project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
-				}
+
 				commitTransaction(conn);
 
-				return Optional.ofNullable(project); // Return the Project object as an Optional object using
-														// Optional.ofNullable()
+				return List.copyOf(projects);
 			} catch (Exception e) {
 				rollbackTransaction(conn);
 				throw new DbException(e);
@@ -154,17 +1273,99 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 
-	private List<Step> fetchStepsForProject(Connection conn, Integer projectId) throws SQLException {
-		String sql = "" + "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ?";
+	private Map<Integer, Project> fetchProjectBatch(Connection conn, List<Integer> batch) throws SQLException {
+		BatchSql sql = batchSql(batch.size());
+		Map<Integer, Project> byId = HashMap.newHashMap(batch.size());
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql.projects())) {
+			setParameters(stmt, batch, sql.slots());
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				RowExtractor<Project> rows = extractor(rs, Project.class);
+
+				while (rs.next()) {
+					Project project = rows.extract(rs);
+					byId.put(project.getProjectId(), project);
+				}
+			}
+		}
+
+		if (byId.isEmpty()) {
+			return byId;
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql.materials())) {
+			setParameters(stmt, batch, sql.slots());
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				RowExtractor<Material> rows = extractor(rs, Material.class);
+
+				while (rs.next()) {
+					Material material = rows.extract(rs);
+					byId.get(material.getProjectId()).getMaterials().add(material);
+				}
+			}
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql.steps())) {
+			setParameters(stmt, batch, sql.slots());
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				RowExtractor<Step> rows = extractor(rs, Step.class);
+
+				while (rs.next()) {
+					Step step = rows.extract(rs);
+					byId.get(step.getProjectId()).getSteps().add(step);
+				}
+			}
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql.categories())) {
+			setParameters(stmt, batch, sql.slots());
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					Category category = categoryDictionary.resolve(conn, rs.getInt(2));
+					byId.get(rs.getInt(1)).getCategories().add(category);
+				}
+			}
+		}
+
+		return byId;
+	}
+
+	/**
+	 * Return the batch queries for an IN list of at least the given size. The list is rounded up to
+	 * a power of two so that batches of different sizes share a few statement texts, and with them
+	 * the prepared statements cached for those texts.
+	 * {@link #setParameters(PreparedStatement, List, int)} fills the extra markers.
+	 */
+	private static BatchSql batchSql(int size) {
+		int slots = size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+
+		return BATCH_SQL.computeIfAbsent(slots, count -> new BatchSql(count, placeholders(count)));
+	}
+
+	/**
+	 * Bind the IDs to the IN-list markers. Markers beyond the end of the list repeat the last ID,
+	 * which does not change the result.
+	 */
+	private void setParameters(PreparedStatement stmt, List<Integer> ids, int slots) throws SQLException {
+		for (int index = 0; index < slots; index++) {
+			setParameter(stmt, index + 1, ids.get(Math.min(index, ids.size() - 1)), Integer.class);
+		}
+	}
 
-		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+	private List<Step> fetchStepsForProject(Connection conn, Integer projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_STEPS_SQL)) {
 			setParameter(stmt, 1, projectId, Integer.class);
 
 			try (ResultSet rs = stmt.executeQuery()) {
-				List<Step> steps = new LinkedList<>();
+				List<Step> steps = new ArrayList<>();
+				RowExtractor<Step> rows = extractor(rs, Step.class);
 
 				while (rs.next()) {
-					steps.add(extract(rs, Step.class));
+					steps.add(rows.extract(rs));
 				}
 				return steps;
 			}
@@ -172,16 +1373,15 @@ public class ProjectDao extends DaoBase {
 	}
 
 	private List<Material> fetchMaterialsForProject(Connection conn, Integer projectId) throws SQLException {
-		String sql = "" + "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ?";
-
-		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_MATERIALS_SQL)) {
 			setParameter(stmt, 1, projectId, Integer.class);
 
 			try (ResultSet rs = stmt.executeQuery()) {
-				List<Material> materials = new LinkedList<>();
+				List<Material> materials = new ArrayList<>();
+				RowExtractor<Material> rows = extractor(rs, Material.class);
 
 				while (rs.next()) {
-					materials.add(extract(rs, Material.class));
+					materials.add(rows.extract(rs));
 				}
 
 				return materials;
@@ -192,17 +1392,14 @@ public class ProjectDao extends DaoBase {
 
 	private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId) throws SQLException {
 
-		String sql = "" + "SELECT c.* FROM " + CATEGORY_TABLE + " c " + " JOIN " + PROJECT_CATEGORY_TABLE
-				+ " pc USING (category_id) " + " WHERE project_id = ?";
-
-		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_CATEGORY_IDS_SQL)) {
 			setParameter(stmt, 1, projectId, Integer.class);
 
 			try (ResultSet rs = stmt.executeQuery()) {
-				List<Category> categories = new LinkedList<>();
+				List<Category> categories = new ArrayList<>();
 
 				while (rs.next()) {
-					categories.add(extract(rs, Category.class));
+					categories.add(categoryDictionary.resolve(conn, rs.getInt(1)));
 				}
 
 				return categories;
@@ -210,40 +1407,129 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 
+	/**
+	 * Write the columns of a project that were changed since it was read. Only the changed columns
+	 * are sent. If the project carries a version, the update only succeeds if the row still has that
+	 * version, and the version is incremented. On success the project's version is updated and its
+	 * dirty columns are cleared. A project with no changes is not written.
+	 * 
+	 * A project without a version (one that was built rather than read) is written unconditionally.
+	 * 
+	 * @param project the project to write
+	 * @return true if the project exists, false if there is no project with its ID
+	 * @throws OptimisticLockException Thrown if the row was changed by someone else since the project
+	 *                                 was read
+	 * @throws DbException             Thrown if an error occurs writing the row
+	 */
 	public boolean modifyProjectDetails(Project project) {
+		Set<ProjectColumn> dirtyColumns = project.getDirtyColumns();
+		Integer version = project.getVersion();
 
-		String sql = "" + "UPDATE " + PROJECT_TABLE + " SET " + "project_name = ?, " + "estimated_hours = ?, "
-				+ "actual_hours = ?, " + "difficulty = ?, " + "notes = ? " + " WHERE project_id = ?";
+		StringJoiner assignments = new StringJoiner(", ");
+
+		for (ProjectColumn column : dirtyColumns) {
+			assignments.add(column.getColumnName() + " = ?");
+		}
+
+		assignments.add("version = version + 1");
+
+		String sql = "UPDATE " + PROJECT_TABLE + " SET " + assignments + " WHERE project_id = ?"
+				+ (Objects.isNull(version) ? "" : " AND version = ?");
 
 		try (Connection conn = DbConnection.getConnection()) {
 			startTransaction(conn);
 
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
-				setParameter(stmt, 6, project.getProjectId(), Integer.class);
+			try {
+				if (dirtyColumns.isEmpty()) {
+					boolean exists = projectExists(conn, project.getProjectId());
+					commitTransaction(conn);
+
+					return exists;
+				}
+
+				boolean modified;
+
+				try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+					int index = 1;
+
+					for (ProjectColumn column : dirtyColumns) {
+						setColumnParameter(stmt, index++, project, column);
+					}
+
+					setParameter(stmt, index++, project.getProjectId(), Integer.class);
+
+					if (Objects.nonNull(version)) {
+						setParameter(stmt, index, version, Integer.class);
+					}
+
+					modified = stmt.executeUpdate() == 1;
+				}
+
+				if (!modified && Objects.nonNull(version) && projectExists(conn, project.getProjectId())) {
+					throw new OptimisticLockException("Project with ID=" + project.getProjectId()
+							+ " was changed by someone else after version " + version + " was read.");
+				}
 
-				boolean modified = stmt.executeUpdate() == 1;
 				commitTransaction(conn);
 
-				return modified;
+				if (modified) {
+					project.setVersion(Objects.isNull(version) ? null : version + 1);
+					project.clearDirtyColumns();
+				}
 
-			} 
-				catch (Exception e) {
+				return modified;
+			} catch (OptimisticLockException e) {
+				rollbackTransaction(conn);
+				throw e;
+			} catch (Exception e) {
 				rollbackTransaction(conn);
 				throw new DbException(e);
-				}
-		} 
-		catch (SQLException e) {
+			}
+		} catch (SQLException e) {
 			throw new DbException(e);
 		}
 	}
 
+	private void setColumnParameter(PreparedStatement stmt, int index, Project project, ProjectColumn column)
+			throws SQLException {
+		switch (column) {
+		case PROJECT_NAME:
+			setParameter(stmt, index, project.getProjectName(), String.class);
+			break;
+
+		case ESTIMATED_HOURS:
+			setParameter(stmt, index, project.getEstimatedHours(), BigDecimal.class);
+			break;
+
+		case ACTUAL_HOURS:
+			setParameter(stmt, index, project.getActualHours(), BigDecimal.class);
+			break;
+
+		case DIFFICULTY:
+			setParameter(stmt, index, project.getDifficulty(), Integer.class);
+			break;
+
+		case NOTES:
+			setParameter(stmt, index, project.getNotes(), String.class);
+			break;
+
+		default:
+			throw new DbException("Column " + column + " cannot be modified");
+		}
+	}
+
+	private boolean projectExists(Connection conn, Integer projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(PROJECT_EXISTS_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next();
+			}
+		}
+	}
+
 	public boolean deleteProject(Integer projectId) {
-		String sql = "" +  "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+		String sql = DELETE_PROJECT_SQL;
 				
 		try (Connection conn = DbConnection.getConnection()) {
 			startTransaction(conn);
@@ -0,0 +1,186 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import projects.entity.CostTotals;
+import projects.entity.Hundredths;
+import projects.entity.ProjectCostSummary;
+import projects.exception.DbException;
+import util.DaoBase;
+
+/**
+ * Cost and effort reports computed by the database. Each report is one query that returns one
+ * summary row per project, category or difficulty, so no project aggregates are loaded.
+ *
+ * Material cost (num_required * cost) is summed per project in a derived table before it is joined
+ * to projects. A project therefore contributes its cost once, however many categories it has.
+ * Amounts are scaled to hundredths in SQL and read with getLong. A sum can outgrow an INT, so the
+ * scaling uses ROUND(x * 100), which keeps the DECIMAL type, rather than CAST(x * 100 AS SIGNED)
+ * as in {@link ProjectViewDao}: H2, which the benchmarks use in place of MySQL, casts SIGNED to a
+ * 32-bit INTEGER.
+ *
+ * In the group totals, the hours and the hour variance are summed over the same projects: those
+ * with both hours recorded. The variance is therefore always the actual total minus the estimated
+ * total. The project count and material cost cover every project in the group.
+ */
+public class ProjectReportDao extends DaoBase {
+	private static final String CATEGORY_TABLE = "category";
+	private static final String MATERIAL_TABLE = "material";
+	private static final String PROJECT_TABLE = "project";
+	private static final String PROJECT_CATEGORY_TABLE = "project_category";
+
+	private static final int STREAM_FETCH_SIZE = 1000;
+
+	// @formatter:off
+	private static final String HAS_BOTH_HOURS = "p.estimated_hours IS NOT NULL AND p.actual_hours IS NOT NULL";
+	private static final String MATERIAL_COST_BY_PROJECT = ""
+			+ "(SELECT project_id, SUM(num_required * cost) AS material_cost "
+			+ "FROM " + MATERIAL_TABLE + " GROUP BY project_id) mc";
+	private static final String GROUP_TOTAL_COLUMNS = ""
+			+ "COUNT(p.project_id), "
+			+ "ROUND(COALESCE(SUM(mc.material_cost), 0) * 100), "
+			+ "ROUND(COALESCE(SUM(CASE WHEN " + HAS_BOTH_HOURS + " THEN p.estimated_hours END), 0) * 100), "
+			+ "ROUND(COALESCE(SUM(CASE WHEN " + HAS_BOTH_HOURS + " THEN p.actual_hours END), 0) * 100), "
+			+ "ROUND(COALESCE(SUM(p.actual_hours - p.estimated_hours), 0) * 100)";
+	private static final String PROJECT_COSTS_SQL = ""
+			+ "SELECT p.project_id, p.project_name, p.difficulty, "
+			+ "ROUND(COALESCE(mc.material_cost, 0) * 100), "
+			+ "ROUND(p.estimated_hours * 100), ROUND(p.actual_hours * 100) "
+			+ "FROM " + PROJECT_TABLE + " p "
+			+ "LEFT JOIN " + MATERIAL_COST_BY_PROJECT + " ON mc.project_id = p.project_id "
+			+ "ORDER BY p.project_name, p.project_id";
+	private static final String COSTS_BY_CATEGORY_SQL = ""
+			+ "SELECT c.category_id, c.category_name, " + GROUP_TOTAL_COLUMNS + " "
+			+ "FROM " + CATEGORY_TABLE + " c "
+			+ "LEFT JOIN " + PROJECT_CATEGORY_TABLE + " pc ON pc.category_id = c.category_id "
+			+ "LEFT JOIN " + PROJECT_TABLE + " p ON p.project_id = pc.project_id "
+			+ "LEFT JOIN " + MATERIAL_COST_BY_PROJECT + " ON mc.project_id = p.project_id "
+			+ "GROUP BY c.category_id, c.category_name "
+			+ "ORDER BY c.category_name";
+	private static final String COSTS_BY_DIFFICULTY_SQL = ""
+			+ "SELECT p.difficulty, " + GROUP_TOTAL_COLUMNS + " "
+			+ "FROM " + PROJECT_TABLE + " p "
+			+ "LEFT JOIN " + MATERIAL_COST_BY_PROJECT + " ON mc.project_id = p.project_id "
+			+ "GROUP BY p.difficulty "
+			+ "ORDER BY p.difficulty";
+	// @formatter:on
+
+	private interface RowReader<T> {
+		T read(ResultSet rs) throws SQLException;
+	}
+
+	/**
+	 * Fetch the material cost and hours of every project, ordered by project name.
+	 *
+	 * @return an unmodifiable list with one summary per project
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public List<ProjectCostSummary> fetchProjectCosts() {
+		List<ProjectCostSummary> summaries = new ArrayList<>();
+		query(PROJECT_COSTS_SQL, ProjectReportDao::projectCost, false, summaries::add);
+		return List.copyOf(summaries);
+	}
+
+	/**
+	 * Pass the material cost and hours of every project, ordered by project name, to the given
+	 * consumer. The rows are streamed from the server rather than read into memory first, and the
+	 * connection is released when the method returns. An exception thrown by the consumer stops the
+	 * report and is rethrown as it is.
+	 *
+	 * @param consumer receives each summary
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public void forEachProjectCost(Consumer<ProjectCostSummary> consumer) {
+		query(PROJECT_COSTS_SQL, ProjectReportDao::projectCost, true, consumer);
+	}
+
+	/**
+	 * Fetch the totals for every category, ordered by category name. A project with several
+	 * categories is counted in each of them. Categories without projects have zero totals.
+	 *
+	 * @return an unmodifiable list with one entry per category
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public List<CostTotals> fetchCostsByCategory() {
+		List<CostTotals> totals = new ArrayList<>();
+
+		query(COSTS_BY_CATEGORY_SQL,
+				rs -> new CostTotals(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getLong(4), rs.getLong(5),
+						rs.getLong(6), rs.getLong(7)),
+				false, totals::add);
+
+		return List.copyOf(totals);
+	}
+
+	/**
+	 * Fetch the totals for each difficulty that has projects, in difficulty order.
+	 *
+	 * @return an unmodifiable list with one entry per difficulty
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public List<CostTotals> fetchCostsByDifficulty() {
+		List<CostTotals> totals = new ArrayList<>();
+
+		query(COSTS_BY_DIFFICULTY_SQL,
+				rs -> new CostTotals(rs.getInt(1), Integer.toString(rs.getInt(1)), rs.getInt(2), rs.getLong(3),
+						rs.getLong(4), rs.getLong(5), rs.getLong(6)),
+				false, totals::add);
+
+		return List.copyOf(totals);
+	}
+
+	/*
+	 * Runs a report query and hands each mapped row to the consumer. A streaming query asks the
+	 * driver for rows one at a time, falling back to fixed-size blocks like
+	 * ProjectDao.streamAllProjects().
+	 */
+	private <T> void query(String sql, RowReader<T> reader, boolean streaming, Consumer<? super T> consumer) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY)) {
+				if (streaming) {
+					try {
+						stmt.setFetchSize(Integer.MIN_VALUE);
+					} catch (SQLException e) {
+						stmt.setFetchSize(STREAM_FETCH_SIZE);
+					}
+				}
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						consumer.accept(reader.read(rs));
+					}
+				}
+
+				commitTransaction(conn);
+			} catch (SQLException e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			} catch (RuntimeException e) {
+				// Thrown by the consumer: not a database error, so it is passed on unchanged.
+				rollbackTransaction(conn);
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private static ProjectCostSummary projectCost(ResultSet rs) throws SQLException {
+		return new ProjectCostSummary(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getLong(4), getHundredths(rs, 5),
+				getHundredths(rs, 6));
+	}
+
+	private static long getHundredths(ResultSet rs, int column) throws SQLException {
+		long value = rs.getLong(column);
+		return rs.wasNull() ? Hundredths.NULL : value;
+	}
+}
@@ -0,0 +1,204 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import projects.entity.CategoryView;
+import projects.entity.Hundredths;
+import projects.entity.MaterialView;
+import projects.entity.ProjectView;
+import projects.entity.StepView;
+import projects.exception.DbException;
+import util.DaoBase;
+
+/**
+ * Reads projects as immutable {@link ProjectView} records for listing and reporting. The rows are
+ * mapped by hand with the primitive getters, so a row costs one record and its strings: there are
+ * no boxed IDs, no BigDecimals and no reflection. The DECIMAL(7,2) hours and cost columns are
+ * scaled to hundredths by the query (CAST(x * 100 AS SIGNED)), which is exact for every value the
+ * column can hold. NULLs are mapped to {@link Hundredths#NULL} and {@link MaterialView#NO_QUANTITY}.
+ *
+ * Category views come from the shared {@link CategoryDictionary}, so a category is one object no
+ * matter how many projects refer to it.
+ */
+public class ProjectViewDao extends DaoBase {
+	private static final String MATERIAL_TABLE = "material";
+	private static final String PROJECT_TABLE = "project";
+	private static final String PROJECT_CATEGORY_TABLE = "project_category";
+	private static final String STEP_TABLE = "step";
+
+	// @formatter:off
+	private static final String PROJECT_COLUMNS = ""
+			+ "project_id, project_name, "
+			+ "CAST(estimated_hours * 100 AS SIGNED), CAST(actual_hours * 100 AS SIGNED), "
+			+ "difficulty, notes, version";
+	private static final String FETCH_PROJECT_VIEWS_SQL =
+			"SELECT " + PROJECT_COLUMNS + " FROM " + PROJECT_TABLE + " ORDER BY project_name";
+	private static final String FETCH_PROJECT_VIEW_SQL =
+			"SELECT " + PROJECT_COLUMNS + " FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+	private static final String FETCH_MATERIAL_VIEWS_SQL = ""
+			+ "SELECT material_id, project_id, material_name, num_required, CAST(cost * 100 AS SIGNED) "
+			+ "FROM " + MATERIAL_TABLE + " WHERE project_id = ?";
+	private static final String FETCH_STEP_VIEWS_SQL = ""
+			+ "SELECT step_id, project_id, step_text, step_order "
+			+ "FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order";
+	private static final String FETCH_CATEGORY_IDS_SQL =
+			"SELECT category_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id = ?";
+	// @formatter:on
+
+	private final CategoryDictionary categoryDictionary;
+
+	/**
+	 * @param categoryDictionary the dictionary that resolves category IDs, normally the one of the
+	 *                           {@link ProjectDao} used for writes
+	 */
+	public ProjectViewDao(CategoryDictionary categoryDictionary) {
+		this.categoryDictionary = categoryDictionary;
+	}
+
+	/**
+	 * Fetch every project, ordered by project name, without materials, steps or categories.
+	 *
+	 * @return an unmodifiable list of the project views, each with empty child lists
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public List<ProjectView> fetchProjectViews() {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(FETCH_PROJECT_VIEWS_SQL)) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<ProjectView> projects = new ArrayList<>();
+
+					while (rs.next()) {
+						projects.add(projectView(rs));
+					}
+
+					commitTransaction(conn);
+
+					return List.copyOf(projects);
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Fetch a project with its materials, steps and categories. The four queries run in one
+	 * transaction.
+	 *
+	 * @param projectId the ID of the project to load
+	 * @return the project view, if found
+	 * @throws DbException Thrown if an error occurs reading the rows
+	 */
+	public Optional<ProjectView> fetchProjectView(int projectId) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				ProjectView project = fetchProjectRow(conn, projectId);
+
+				if (project != null) {
+					project = project.withChildren(fetchMaterials(conn, projectId), fetchSteps(conn, projectId),
+							fetchCategories(conn, projectId));
+				}
+
+				commitTransaction(conn);
+
+				return Optional.ofNullable(project);
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private ProjectView fetchProjectRow(Connection conn, int projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_PROJECT_VIEW_SQL)) {
+			stmt.setInt(1, projectId);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? projectView(rs) : null;
+			}
+		}
+	}
+
+	private List<MaterialView> fetchMaterials(Connection conn, int projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_MATERIAL_VIEWS_SQL)) {
+			stmt.setInt(1, projectId);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				List<MaterialView> materials = new ArrayList<>();
+
+				while (rs.next()) {
+					int numRequired = rs.getInt(4);
+
+					if (rs.wasNull()) {
+						numRequired = MaterialView.NO_QUANTITY;
+					}
+
+					materials.add(new MaterialView(rs.getInt(1), rs.getInt(2), rs.getString(3), numRequired,
+							getHundredths(rs, 5)));
+				}
+
+				return materials;
+			}
+		}
+	}
+
+	private List<StepView> fetchSteps(Connection conn, int projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_STEP_VIEWS_SQL)) {
+			stmt.setInt(1, projectId);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				List<StepView> steps = new ArrayList<>();
+
+				while (rs.next()) {
+					steps.add(new StepView(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getInt(4)));
+				}
+
+				return steps;
+			}
+		}
+	}
+
+	private List<CategoryView> fetchCategories(Connection conn, int projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_CATEGORY_IDS_SQL)) {
+			stmt.setInt(1, projectId);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				List<CategoryView> categories = new ArrayList<>();
+
+				while (rs.next()) {
+					categories.add(categoryDictionary.resolveView(conn, rs.getInt(1)));
+				}
+
+				return categories;
+			}
+		}
+	}
+
+	/*
+	 * Maps the columns of PROJECT_COLUMNS. The child lists are left empty.
+	 */
+	private static ProjectView projectView(ResultSet rs) throws SQLException {
+		return new ProjectView(rs.getInt(1), rs.getString(2), getHundredths(rs, 3), getHundredths(rs, 4), rs.getInt(5),
+				rs.getString(6), rs.getInt(7), List.of(), List.of(), List.of());
+	}
+
+	private static long getHundredths(ResultSet rs, int column) throws SQLException {
+		long value = rs.getLong(column);
+		return rs.wasNull() ? Hundredths.NULL : value;
+	}
+}
@@ -0,0 +1,95 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+import projects.exception.DbException;
+
+/**
+ * Runs EXPLAIN for the statements the DAO issues most and formats the plans as text. Plans that
+ * scan a whole table, sort in a temporary file or use a temporary table are flagged, which is
+ * usually the sign of a missing index.
+ *
+ * The report is meant to be printed once at startup, after the schema has been migrated, so that
+ * a plan regression shows up before it shows up as latency. See
+ * {@link ProjectDao#explainableQueries()} for the statements covered.
+ */
+public class QueryPlanReport {
+	/**
+	 * A statement to explain and representative values for its parameters.
+	 */
+	record Query(String label, String sql, List<Object> parameters) {
+	}
+
+	/**
+	 * Explain every covered statement.
+	 *
+	 * @return the report, one block per statement
+	 * @throws DbException Thrown if a plan cannot be read
+	 */
+	public String run() {
+		StringBuilder report = new StringBuilder("Query plans:\n");
+		int flagged = 0;
+
+		try (Connection conn = DbConnection.getConnection()) {
+			for (Query query : ProjectDao.explainableQueries()) {
+				List<String> rows = explain(conn, query);
+				boolean suspicious = rows.stream().anyMatch(QueryPlanReport::isSuspicious);
+
+				if (suspicious) {
+					flagged++;
+				}
+
+				report.append(suspicious ? " ! " : "   ").append(query.label()).append('\n');
+				report.append("     ").append(query.sql()).append('\n');
+				rows.forEach(row -> report.append("     -> ").append(row).append('\n'));
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+
+		return report.append(flagged).append(" statement(s) flagged").toString();
+	}
+
+	private List<String> explain(Connection conn, Query query) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + query.sql())) {
+			for (int index = 0; index < query.parameters().size(); index++) {
+				stmt.setObject(index + 1, query.parameters().get(index));
+			}
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				ResultSetMetaData metaData = rs.getMetaData();
+				List<String> rows = new ArrayList<>();
+
+				while (rs.next()) {
+					StringJoiner row = new StringJoiner(", ");
+
+					for (int col = 1; col <= metaData.getColumnCount(); col++) {
+						Object value = rs.getObject(col);
+
+						if (Objects.nonNull(value)) {
+							row.add(metaData.getColumnLabel(col).toLowerCase(Locale.ROOT) + "=" + value);
+						}
+					}
+
+					rows.add(row.toString());
+				}
+
+				return rows;
+			}
+		}
+	}
+
+	/* MySQL reports a full scan as type=ALL and extra sorting or temporary tables in Extra. */
+	private static boolean isSuspicious(String row) {
+		return row.contains("type=ALL") || row.contains("Using filesort") || row.contains("Using temporary");
+	}
+}
@@ -0,0 +1,290 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+import projects.exception.DbException;
+import util.DaoBase;
+
+/**
+ * Brings the database schema up to date. Applied versions are recorded in the schema_version
+ * table, and each migration runs once, in version order.
+ *
+ * Version 1 is projects_schema.sql, which always describes the complete current schema. It is only
+ * run against an empty database, and because it already contains every later change, the later
+ * versions are recorded as applied along with it. A database that has the project tables but no
+ * schema_version table was created before the runner existed. It is recorded at version 1 and the
+ * incremental migrations are applied on top. An incremental migration whose column or index is
+ * already present is recorded without running, so a database created from a newer copy of
+ * projects_schema.sql is not altered twice.
+ *
+ * MySQL commits DDL implicitly, so a migration is not atomic. If one fails, fix the cause and
+ * start the application again; the versions recorded so far are not repeated. Only one instance of
+ * the application should migrate a database at a time.
+ */
+public class SchemaMigrator extends DaoBase {
+	private static final String SCHEMA_VERSION_TABLE = "schema_version";
+
+	/**
+	 * A versioned SQL script on the classpath.
+	 *
+	 * @param appliedCheck tells whether the change is already in the database. Null for version 1.
+	 */
+	private record Migration(int version, String description, String script, AppliedCheck appliedCheck) {
+	}
+
+	@FunctionalInterface
+	private interface AppliedCheck {
+		boolean isApplied(DatabaseMetaData metaData) throws SQLException;
+	}
+
+	//@formatter:off
+	private static final List<Migration> MIGRATIONS = List.of(
+		new Migration(1, "projects schema", "projects_schema.sql", null),
+		new Migration(2, "add project version", "db/migration/V2__add_project_version.sql",
+				metaData -> hasColumn(metaData, "project", "version")),
+		new Migration(3, "index project name", "db/migration/V3__index_project_name.sql",
+				metaData -> hasIndex(metaData, "project", "idx_project_name")),
+		new Migration(4, "unique step order", "db/migration/V4__unique_step_order.sql",
+				metaData -> hasIndex(metaData, "step", "uk_step_order")),
+		new Migration(5, "index material project", "db/migration/V5__index_material_project.sql",
+				metaData -> hasIndex(metaData, "material", "idx_material_project"))
+	);
+	//@formatter:on
+
+	/**
+	 * Apply the migrations the database does not have yet.
+	 *
+	 * @return the number of migration scripts that were run
+	 * @throws DbException Thrown if a migration fails. Earlier migrations stay applied.
+	 */
+	public int migrate() {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				int applied = 0;
+
+				if (!hasTable(conn.getMetaData(), SCHEMA_VERSION_TABLE)) {
+					boolean existing = hasTable(conn.getMetaData(), "project");
+
+					if (!existing) {
+						executeScript(conn, MIGRATIONS.get(0));
+						applied++;
+					}
+
+					createVersionTable(conn);
+
+					for (Migration migration : MIGRATIONS) {
+						if (migration.version() == 1 || !existing) {
+							recordVersion(conn, migration, 0);
+						}
+					}
+
+					commitTransaction(conn);
+				}
+
+				Set<Integer> recorded = fetchRecordedVersions(conn);
+
+				for (Migration migration : MIGRATIONS) {
+					if (recorded.contains(migration.version())) {
+						continue;
+					}
+
+					if (migration.appliedCheck().isApplied(conn.getMetaData())) {
+						recordVersion(conn, migration, 0);
+						commitTransaction(conn);
+						continue;
+					}
+
+					long start = System.nanoTime();
+					executeScript(conn, migration);
+					recordVersion(conn, migration, (System.nanoTime() - start) / 1_000_000);
+					commitTransaction(conn);
+					applied++;
+
+					System.out.println("Applied schema migration " + migration.version() + ": " + migration.description());
+				}
+
+				return applied;
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * @return the highest version recorded in the database, or 0 if there is none
+	 * @throws DbException Thrown if an error occurs
+	 */
+	public int getCurrentVersion() {
+		try (Connection conn = DbConnection.getConnection()) {
+			if (!hasTable(conn.getMetaData(), SCHEMA_VERSION_TABLE)) {
+				return 0;
+			}
+
+			return fetchRecordedVersions(conn).stream().mapToInt(Integer::intValue).max().orElse(0);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * @return the version the schema has once every migration is applied
+	 */
+	public static int getLatestVersion() {
+		return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+	}
+
+	private void executeScript(Connection conn, Migration migration) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			for (String sql : readStatements(migration.script())) {
+				stmt.execute(sql);
+			}
+		} catch (IOException | SQLException e) {
+			throw new SQLException("Schema migration " + migration.version() + " (" + migration.script() + ") failed", e);
+		}
+	}
+
+	private void createVersionTable(Connection conn) throws SQLException {
+		// @formatter:off
+		String sql = ""
+				+ "CREATE TABLE IF NOT EXISTS " + SCHEMA_VERSION_TABLE + " ("
+				+ "version INT NOT NULL, "
+				+ "description VARCHAR(128) NOT NULL, "
+				+ "script VARCHAR(255) NOT NULL, "
+				+ "execution_ms BIGINT NOT NULL, "
+				+ "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+				+ "PRIMARY KEY (version))";
+		// @formatter:on
+
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(sql);
+		}
+	}
+
+	private void recordVersion(Connection conn, Migration migration, long executionMillis) throws SQLException {
+		String sql = "INSERT INTO " + SCHEMA_VERSION_TABLE
+				+ " (version, description, script, execution_ms) VALUES (?, ?, ?, ?)";
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+			setParameter(stmt, 1, migration.version(), Integer.class);
+			setParameter(stmt, 2, migration.description(), String.class);
+			setParameter(stmt, 3, migration.script(), String.class);
+			setParameter(stmt, 4, executionMillis, Long.class);
+			stmt.executeUpdate();
+		}
+	}
+
+	private Set<Integer> fetchRecordedVersions(Connection conn) throws SQLException {
+		String sql = "SELECT version FROM " + SCHEMA_VERSION_TABLE;
+		Set<Integer> versions = new HashSet<>();
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				versions.add(rs.getInt(1));
+			}
+		}
+
+		return versions;
+	}
+
+	/**
+	 * Split a script into statements. Statements end with a semicolon at the end of a line, and
+	 * lines starting with "--" are comments.
+	 */
+	private static List<String> readStatements(String resource) throws IOException {
+		String script;
+
+		try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(resource)) {
+			if (Objects.isNull(in)) {
+				throw new IOException("Migration script " + resource + " is not on the classpath");
+			}
+
+			script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+
+		List<String> statements = new ArrayList<>();
+		StringBuilder statement = new StringBuilder();
+
+		for (String line : script.split("\\R")) {
+			String trimmed = line.trim();
+
+			if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+				continue;
+			}
+
+			statement.append(line).append('\n');
+
+			if (trimmed.endsWith(";")) {
+				statement.setLength(statement.lastIndexOf(";"));
+				statements.add(statement.toString());
+				statement.setLength(0);
+			}
+		}
+
+		if (!statement.toString().isBlank()) {
+			statements.add(statement.toString());
+		}
+
+		return statements;
+	}
+
+	private static boolean hasTable(DatabaseMetaData metaData, String table) throws SQLException {
+		try (ResultSet rs = metaData.getTables(catalog(metaData), null, identifier(metaData, table), new String[] { "TABLE" })) {
+			return rs.next();
+		}
+	}
+
+	private static boolean hasColumn(DatabaseMetaData metaData, String table, String column) throws SQLException {
+		try (ResultSet rs = metaData.getColumns(catalog(metaData), null, identifier(metaData, table), identifier(metaData, column))) {
+			return rs.next();
+		}
+	}
+
+	private static boolean hasIndex(DatabaseMetaData metaData, String table, String index) throws SQLException {
+		try (ResultSet rs = metaData.getIndexInfo(catalog(metaData), null, identifier(metaData, table), false, true)) {
+			while (rs.next()) {
+				if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	/* MySQL treats a null catalog as "every database", so restrict lookups to the connected one. */
+	private static String catalog(DatabaseMetaData metaData) throws SQLException {
+		return metaData.getConnection().getCatalog();
+	}
+
+	/* Metadata lookups match names exactly, so use the case the database stores unquoted names in. */
+	private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+		if (metaData.storesUpperCaseIdentifiers()) {
+			return name.toUpperCase(Locale.ROOT);
+		}
+
+		if (metaData.storesLowerCaseIdentifiers()) {
+			return name.toLowerCase(Locale.ROOT);
+		}
+
+		return name;
+	}
+}
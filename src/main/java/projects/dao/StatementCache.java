@@ -0,0 +1,250 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The prepared statements of one physical connection, kept open between loans so that a statement
+ * prepared once is reused by every later borrower that prepares the same SQL. With server-side
+ * prepares enabled (useServerPrepStmts=true), MySQL parses and plans each statement once per
+ * connection instead of once per call.
+ *
+ * Borrowers use statements exactly as before: close() hands the statement back to the cache
+ * instead of closing it. The parameters, batch, warnings and fetch size are reset on the way
+ * back. The least recently used statements are closed once the cache is full.
+ *
+ * Only the plain prepareStatement forms are cached: the SQL alone, SQL with an auto-generated-keys
+ * flag and SQL with a result set type and concurrency. If the same statement is prepared again
+ * while the first copy is still open, the second copy is an ordinary uncached statement.
+ *
+ * A cache belongs to one connection, and a connection is used by one borrower at a time, so the
+ * cache is not synchronized.
+ */
+class StatementCache {
+  private record Key(String sql, int variant, int first, int second) {
+  }
+
+  /**
+   * A cached physical statement. The loan number changes every time the statement goes back to
+   * the cache, which invalidates the handle given out for the previous loan.
+   */
+  private static class Entry {
+    private final PreparedStatement physical;
+    private final int initialFetchSize;
+    private boolean inUse;
+    private long loan;
+
+    Entry(PreparedStatement physical) throws SQLException {
+      this.physical = physical;
+      this.initialFetchSize = physical.getFetchSize();
+    }
+  }
+
+  private final Connection physical;
+  private final int maxSize;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses,
+      LongAdder evictions) {
+    this.physical = physical;
+    this.maxSize = maxSize;
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+  }
+
+  /**
+   * Returns a statement for a prepareStatement call made through the given connection handle, or
+   * null if the call's form is not cached.
+   */
+  PreparedStatement prepare(Connection handle, Object[] args) throws SQLException {
+    Key key = keyFor(args);
+
+    if(key == null) {
+      return null;
+    }
+
+    Entry entry = entries.get(key);
+
+    if(entry != null && !entry.inUse) {
+      hits.increment();
+    }
+    else {
+      misses.increment();
+      PreparedStatement stmt = prepare(key);
+
+      if(entry != null) {
+        /* The cached copy is on loan, so this one is not cached. */
+        return stmt;
+      }
+
+      entry = new Entry(stmt);
+      entries.put(key, entry);
+      evictIdle();
+    }
+
+    entry.inUse = true;
+    return newHandle(handle, entry);
+  }
+
+  /**
+   * Takes back every statement still on loan. Called when the connection is returned to the pool.
+   */
+  void releaseAll() {
+    Iterator<Entry> it = entries.values().iterator();
+
+    while(it.hasNext()) {
+      Entry entry = it.next();
+
+      if(entry.inUse && !checkIn(entry)) {
+        it.remove();
+      }
+    }
+  }
+
+  private static Key keyFor(Object[] args) {
+    if(args.length == 1) {
+      return new Key((String)args[0], 1, 0, 0);
+    }
+
+    if(args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+      return new Key((String)args[0], 2, autoGeneratedKeys, 0);
+    }
+
+    if(args.length == 3) {
+      return new Key((String)args[0], 3, (Integer)args[1], (Integer)args[2]);
+    }
+
+    return null;
+  }
+
+  private PreparedStatement prepare(Key key) throws SQLException {
+    switch(key.variant()) {
+      case 2:
+        return physical.prepareStatement(key.sql(), key.first());
+
+      case 3:
+        return physical.prepareStatement(key.sql(), key.first(), key.second());
+
+      default:
+        return physical.prepareStatement(key.sql());
+    }
+  }
+
+  private void evictIdle() {
+    Iterator<Entry> it = entries.values().iterator();
+
+    while(entries.size() > maxSize && it.hasNext()) {
+      Entry eldest = it.next();
+
+      if(!eldest.inUse) {
+        it.remove();
+        evictions.increment();
+        closeQuietly(eldest.physical);
+      }
+    }
+  }
+
+  /**
+   * Resets a statement for its next loan. Returns false if it couldn't be reset, in which case it
+   * has been closed and the caller must remove it from the cache.
+   */
+  private boolean checkIn(Entry entry) {
+    entry.loan++;
+    entry.inUse = false;
+
+    try {
+      ResultSet rs = entry.physical.getResultSet();
+
+      if(rs != null) {
+        rs.close();
+      }
+
+      entry.physical.clearParameters();
+      entry.physical.clearBatch();
+      entry.physical.clearWarnings();
+
+      if(entry.physical.getFetchSize() != entry.initialFetchSize) {
+        entry.physical.setFetchSize(entry.initialFetchSize);
+      }
+
+      return true;
+    }
+    catch(SQLException e) {
+      /* A statement that can't be reset is not reused. */
+      closeQuietly(entry.physical);
+      return false;
+    }
+  }
+
+  private PreparedStatement newHandle(Connection handle, Entry entry) {
+    long loan = entry.loan;
+
+    InvocationHandler handler = new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        boolean current = entry.loan == loan;
+
+        switch(method.getName()) {
+          case "close":
+            if(current && !checkIn(entry)) {
+              entries.values().remove(entry);
+            }
+            return null;
+
+          case "isClosed":
+            return !current || entry.physical.isClosed();
+
+          case "getConnection":
+            return handle;
+
+          case "equals":
+            return proxy == args[0];
+
+          case "hashCode":
+            return System.identityHashCode(proxy);
+
+          case "toString":
+            return "Cached[" + entry.physical + "]";
+
+          default:
+            if(!current) {
+              throw new SQLException("Statement has already been closed.");
+            }
+
+            try {
+              return method.invoke(entry.physical, args);
+            }
+            catch(InvocationTargetException e) {
+              throw e.getCause();
+            }
+        }
+      }
+    };
+
+    return (PreparedStatement)Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+        new Class<?>[] {PreparedStatement.class}, handler);
+  }
+
+  private static void closeQuietly(PreparedStatement stmt) {
+    try {
+      stmt.close();
+    }
+    catch(SQLException e) {
+      /* The statement is being discarded, so there is nothing further to do. */
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import projects.entity.Step;
+import util.DaoBase;
+
+/**
+ * Maintains the step_order column of the step table as a gap-based rank. Steps are numbered
+ * {@link #GAP}, 2 * GAP, 3 * GAP and so on, which leaves room to put a step between two others by
+ * taking the midpoint of their ranks. Appending, moving and deleting a step therefore touch only
+ * that step's row. Gaps left by deleted steps are harmless.
+ *
+ * When two neighbours have no integer left between them, the project's steps are renumbered with
+ * fresh gaps. This is rare: with a gap of 1024 a position has to be split about ten times before
+ * it happens.
+ *
+ * Every method must run inside a transaction that has called {@link #lockProject(Connection,
+ * Integer)} first. The row lock on the parent project serializes ordering changes for that
+ * project, so two concurrent appends can't compute the same rank. The unique (project_id,
+ * step_order) index backs this up: a caller that forgets the lock gets a constraint violation, not
+ * a silently duplicated position.
+ */
+class StepOrdering extends DaoBase {
+	static final int GAP = 1024;
+
+	private static final String PROJECT_TABLE = "project";
+	private static final String STEP_TABLE = "step";
+
+	// @formatter:off
+	private static final String LOCK_PROJECT_SQL =
+			"SELECT project_id FROM " + PROJECT_TABLE + " WHERE project_id = ? FOR UPDATE";
+	static final String MAX_RANK_SQL =
+			"SELECT COALESCE(MAX(step_order), 0) FROM " + STEP_TABLE + " WHERE project_id = ?";
+	private static final String RANK_OF_SQL =
+			"SELECT step_order FROM " + STEP_TABLE + " WHERE step_id = ? AND project_id = ?";
+	static final String RANK_FOLLOWING_SQL =
+			"SELECT MIN(step_order) FROM " + STEP_TABLE + " WHERE project_id = ? AND step_order > ?";
+	private static final String NEGATE_RANKS_SQL =
+			"UPDATE " + STEP_TABLE + " SET step_order = -step_order WHERE project_id = ?";
+	private static final String FETCH_NEGATED_ORDER_SQL =
+			"SELECT step_id FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order DESC";
+	private static final String SET_RANK_SQL =
+			"UPDATE " + STEP_TABLE + " SET step_order = ? WHERE step_id = ?";
+	// @formatter:on
+
+	/**
+	 * Lock the project row until the end of the current transaction.
+	 *
+	 * @return true if the project exists
+	 */
+	boolean lockProject(Connection conn, Integer projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(LOCK_PROJECT_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next();
+			}
+		}
+	}
+
+	/**
+	 * Rank the steps of a project that is being inserted. Steps that already carry a step order keep
+	 * it. The others are numbered in list order, {@link #GAP} apart, starting after the largest
+	 * step order given, so the two kinds can be mixed without producing the same rank twice.
+	 *
+	 * @return the step order of each step, in list order
+	 * @throws SQLException Thrown if two steps are given the same step order, or the ranks don't fit
+	 *                      in an int
+	 */
+	static int[] ranksForNewSteps(Integer projectId, List<Step> steps) throws SQLException {
+		int[] ranks = new int[steps.size()];
+		Set<Integer> given = new HashSet<>();
+		long next = 0;
+
+		for (Step step : steps) {
+			Integer stepOrder = step.getStepOrder();
+
+			if (Objects.nonNull(stepOrder)) {
+				if (!given.add(stepOrder)) {
+					throw new SQLException("Step order " + stepOrder + " is used by more than one step of project with ID="
+							+ projectId);
+				}
+
+				next = Math.max(next, stepOrder);
+			}
+		}
+
+		for (int index = 0; index < ranks.length; index++) {
+			Integer stepOrder = steps.get(index).getStepOrder();
+
+			if (Objects.nonNull(stepOrder)) {
+				ranks[index] = stepOrder;
+				continue;
+			}
+
+			next += GAP;
+
+			if (next > Integer.MAX_VALUE) {
+				throw new SQLException("Too many steps to rank in project with ID=" + projectId);
+			}
+
+			ranks[index] = (int) next;
+		}
+
+		return ranks;
+	}
+
+	/**
+	 * @return true if the step belongs to the project
+	 */
+	boolean hasStep(Connection conn, Integer projectId, Integer stepId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(RANK_OF_SQL)) {
+			setParameter(stmt, 1, stepId, Integer.class);
+			setParameter(stmt, 2, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next();
+			}
+		}
+	}
+
+	/**
+	 * Return the rank for the first of {@code count} steps appended to the end of the project. The
+	 * others follow at intervals of {@link #GAP}. The maximum is read through the unique index, so
+	 * this is one index lookup however many steps the project has.
+	 */
+	int nextRank(Connection conn, Integer projectId, int count) throws SQLException {
+		long rank = maxRank(conn, projectId) + GAP;
+
+		if (rank + (long) GAP * (count - 1) > Integer.MAX_VALUE) {
+			rank = rebalance(conn, projectId) + GAP;
+		}
+
+		return (int) rank;
+	}
+
+	/**
+	 * Return a free rank immediately after the given step, or at the front of the project if
+	 * {@code afterStepId} is null. The project is renumbered first if there is no room.
+	 *
+	 * @throws SQLException Thrown if afterStepId is not a step of the project
+	 */
+	int rankAfter(Connection conn, Integer projectId, Integer afterStepId) throws SQLException {
+		for (int attempt = 0; attempt < 2; attempt++) {
+			long previous = Objects.isNull(afterStepId) ? 0 : rankOf(conn, projectId, afterStepId);
+			Integer next = rankFollowing(conn, projectId, previous);
+
+			if (Objects.isNull(next)) {
+				if (previous + GAP <= Integer.MAX_VALUE) {
+					return (int) (previous + GAP);
+				}
+			} else if (next - previous >= 2) {
+				return (int) ((previous + next) / 2);
+			}
+
+			rebalance(conn, projectId);
+		}
+
+		throw new SQLException("Unable to find a free step position in project with ID=" + projectId);
+	}
+
+	/**
+	 * Renumber the project's steps GAP, 2 * GAP, ... keeping their current order. The ranks are
+	 * negated first so that no intermediate state violates the unique index.
+	 *
+	 * @return the highest rank after renumbering, or 0 if the project has no steps
+	 */
+	int rebalance(Connection conn, Integer projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(NEGATE_RANKS_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+			stmt.executeUpdate();
+		}
+
+		List<Integer> stepIds = new ArrayList<>();
+
+		try (PreparedStatement stmt = conn.prepareStatement(FETCH_NEGATED_ORDER_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					stepIds.add(rs.getInt(1));
+				}
+			}
+		}
+
+		if (stepIds.isEmpty()) {
+			return 0;
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(SET_RANK_SQL)) {
+			for (int index = 0; index < stepIds.size(); index++) {
+				setParameter(stmt, 1, GAP * (index + 1), Integer.class);
+				setParameter(stmt, 2, stepIds.get(index), Integer.class);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+		}
+
+		return GAP * stepIds.size();
+	}
+
+	private int maxRank(Connection conn, Integer projectId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(MAX_RANK_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				rs.next();
+				return rs.getInt(1);
+			}
+		}
+	}
+
+	private int rankOf(Connection conn, Integer projectId, Integer stepId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(RANK_OF_SQL)) {
+			setParameter(stmt, 1, stepId, Integer.class);
+			setParameter(stmt, 2, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				if (!rs.next()) {
+					throw new SQLException("Step with ID=" + stepId + " does not exist in project with ID=" + projectId);
+				}
+
+				return rs.getInt(1);
+			}
+		}
+	}
+
+	private Integer rankFollowing(Connection conn, Integer projectId, long rank) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(RANK_FOLLOWING_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+			setParameter(stmt, 2, (int) rank, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				rs.next();
+				int next = rs.getInt(1);
+				return rs.wasNull() ? null : next;
+			}
+		}
+	}
+}
@@ -0,0 +1,15 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The read-only form of a {@link Category}.
+ */
+public record CategoryView(int categoryId, String categoryName) {
+
+  @Override
+  public String toString() {
+    return "ID=" + categoryId + ", categoryName=" + categoryName;
+  }
+}
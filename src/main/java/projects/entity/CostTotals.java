@@ -0,0 +1,27 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * Material cost and hours summed over a group of projects by the database. Amounts are in
+ * hundredths (see {@link Hundredths}); sums over no values are zero. The hours and the hour variance
+ * only count projects that have both hours recorded, so the variance is always the actual hours
+ * minus the estimated hours. The project count and material cost include every project.
+ *
+ * @param groupId The category ID or the difficulty the projects were grouped by.
+ * @param groupName The category name, or the difficulty as text.
+ */
+public record CostTotals(int groupId, String groupName, int projectCount,
+    long materialCostHundredths, long estimatedHoursHundredths, long actualHoursHundredths,
+    long hourVarianceHundredths) {
+
+  @Override
+  public String toString() {
+    return groupName + ": projects=" + projectCount + ", materialCost="
+        + Hundredths.toString(materialCostHundredths) + ", estimatedHours="
+        + Hundredths.toString(estimatedHoursHundredths) + ", actualHours="
+        + Hundredths.toString(actualHoursHundredths) + ", variance="
+        + Hundredths.toString(hourVarianceHundredths) + " (hours of projects with both recorded)";
+  }
+}
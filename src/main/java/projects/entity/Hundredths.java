@@ -0,0 +1,49 @@
+/**
+ * 
+ */
+package projects.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * Helpers for the DECIMAL(7,2) columns (hours and cost) held in the read models as a long count of
+ * hundredths, so 12.50 hours is 1250. Every value of such a column fits, so nothing is lost, and a
+ * long needs no object of its own. SQL NULL is {@link #NULL}.
+ */
+public final class Hundredths {
+  /** Stands for SQL NULL. No DECIMAL(7,2) value maps to it. */
+  public static final long NULL = Long.MIN_VALUE;
+
+  private Hundredths() {
+  }
+
+  /**
+   * @param value A value with at most two decimal places, or null.
+   * @return The value in hundredths, or {@link #NULL}.
+   * @throws ArithmeticException Thrown if the value has more than two decimal places.
+   */
+  public static long of(BigDecimal value) {
+    return value == null ? NULL : value.movePointRight(2).longValueExact();
+  }
+
+  /**
+   * @return The value as a BigDecimal with two decimal places, or null for {@link #NULL}.
+   */
+  public static BigDecimal toBigDecimal(long hundredths) {
+    return hundredths == NULL ? null : BigDecimal.valueOf(hundredths, 2);
+  }
+
+  /**
+   * @return The value with two decimal places, as the DECIMAL column prints it, or "null".
+   */
+  public static String toString(long hundredths) {
+    if(hundredths == NULL) {
+      return "null";
+    }
+
+    long units = Math.abs(hundredths);
+    String text = units / 100 + "." + (units % 100 < 10 ? "0" : "") + units % 100;
+
+    return hundredths < 0 ? "-" + text : text;
+  }
+}
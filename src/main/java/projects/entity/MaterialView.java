@@ -0,0 +1,23 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The read-only form of a {@link Material}. The cost is in hundredths (see {@link Hundredths}).
+ *
+ * @param numRequired The quantity, or {@link #NO_QUANTITY} if the column is NULL.
+ */
+public record MaterialView(int materialId, int projectId, String materialName, int numRequired,
+    long costHundredths) {
+
+  /** Stands for a NULL num_required. */
+  public static final int NO_QUANTITY = Integer.MIN_VALUE;
+
+  @Override
+  public String toString() {
+    return "ID=" + materialId + ", materialName=" + materialName + ", numRequired="
+        + (numRequired == NO_QUANTITY ? "null" : numRequired) + ", cost="
+        + Hundredths.toString(costHundredths);
+  }
+}
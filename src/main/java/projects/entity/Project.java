@@ -5,8 +5,13 @@ package projects.entity;
 
 import java.math.BigDecimal;
 import java.sql.ResultSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * @author Promineo
@@ -19,10 +24,23 @@ public class Project {
   private BigDecimal actualHours;
   private Integer difficulty;
   private String notes;
+  private Integer version;
 
-  private List<Material> materials = new LinkedList<>();
-  private List<Step> steps = new LinkedList<>();
-  private List<Category> categories = new LinkedList<>();
+  /* The columns changed through a setter since the project was read or last saved. */
+  private final Set<ProjectColumn> dirtyColumns = EnumSet.noneOf(ProjectColumn.class);
+
+  private List<Material> materials = new ArrayList<>();
+  private List<Step> steps = new ArrayList<>();
+  private List<Category> categories = new ArrayList<>();
+
+  /*
+   * Loaders for child collections that have not been read yet. A loader runs on the first call to
+   * the matching getter and is then discarded. Lazy loading is not thread-safe, so a project with
+   * pending loaders must not be shared between threads.
+   */
+  private Supplier<List<Material>> materialsLoader;
+  private Supplier<List<Step>> stepsLoader;
+  private Supplier<List<Category>> categoriesLoader;
 
   public Integer getProjectId() {
     return projectId;
@@ -38,6 +56,7 @@ public class Project {
 
   public void setProjectName(String projectName) {
     this.projectName = projectName;
+    dirtyColumns.add(ProjectColumn.PROJECT_NAME);
   }
 
   public BigDecimal getEstimatedHours() {
@@ -46,6 +65,7 @@ public class Project {
 
   public void setEstimatedHours(BigDecimal estimatedHours) {
     this.estimatedHours = estimatedHours;
+    dirtyColumns.add(ProjectColumn.ESTIMATED_HOURS);
   }
 
   public BigDecimal getActualHours() {
@@ -54,6 +74,7 @@ public class Project {
 
   public void setActualHours(BigDecimal actualHours) {
     this.actualHours = actualHours;
+    dirtyColumns.add(ProjectColumn.ACTUAL_HOURS);
   }
 
   public Integer getDifficulty() {
@@ -62,6 +83,7 @@ public class Project {
 
   public void setDifficulty(Integer difficulty) {
     this.difficulty = difficulty;
+    dirtyColumns.add(ProjectColumn.DIFFICULTY);
   }
 
   public String getNotes() {
@@ -70,20 +92,82 @@ public class Project {
 
   public void setNotes(String notes) {
     this.notes = notes;
+    dirtyColumns.add(ProjectColumn.NOTES);
+  }
+
+  /**
+   * @return the row version used for optimistic locking, or null if the project was not read from
+   *         the database
+   */
+  public Integer getVersion() {
+    return version;
+  }
+
+  public void setVersion(Integer version) {
+    this.version = version;
+  }
+
+  /**
+   * @return the columns changed through a setter since the project was read or last saved
+   */
+  public Set<ProjectColumn> getDirtyColumns() {
+    return Collections.unmodifiableSet(EnumSet.copyOf(dirtyColumns));
+  }
+
+  /**
+   * Marks every column as unchanged. Called once the changes have been written.
+   */
+  public void clearDirtyColumns() {
+    dirtyColumns.clear();
   }
 
   public List<Material> getMaterials() {
+    if(Objects.nonNull(materialsLoader)) {
+      materials.addAll(materialsLoader.get());
+      materialsLoader = null;
+    }
+
     return materials;
   }
 
   public List<Step> getSteps() {
+    if(Objects.nonNull(stepsLoader)) {
+      steps.addAll(stepsLoader.get());
+      stepsLoader = null;
+    }
+
     return steps;
   }
 
   public List<Category> getCategories() {
+    if(Objects.nonNull(categoriesLoader)) {
+      categories.addAll(categoriesLoader.get());
+      categoriesLoader = null;
+    }
+
     return categories;
   }
 
+  public void setMaterialsLoader(Supplier<List<Material>> materialsLoader) {
+    this.materialsLoader = materialsLoader;
+  }
+
+  public void setStepsLoader(Supplier<List<Step>> stepsLoader) {
+    this.stepsLoader = stepsLoader;
+  }
+
+  public void setCategoriesLoader(Supplier<List<Category>> categoriesLoader) {
+    this.categoriesLoader = categoriesLoader;
+  }
+
+  /**
+   * @return true if no child collection is waiting to be loaded
+   */
+  public boolean isFullyLoaded() {
+    return Objects.isNull(materialsLoader) && Objects.isNull(stepsLoader)
+        && Objects.isNull(categoriesLoader);
+  }
+
   @Override
   public String toString() {
     String result = "";
@@ -94,22 +178,23 @@ public class Project {
     result += "\n   actualHours=" + actualHours;
     result += "\n   difficulty=" + difficulty;
     result += "\n   notes=" + notes;
+    result += "\n   version=" + version;
     
     result += "\n   Materials:";
     
-    for(Material material : materials) {
+    for(Material material : getMaterials()) {
       result += "\n      " + material;
     }
     
     result += "\n   Steps:";
     
-    for(Step step : steps) {
+    for(Step step : getSteps()) {
       result += "\n      " + step;
     }
     
     result += "\n   Categories:";
     
-    for(Category category : categories) {
+    for(Category category : getCategories()) {
       result += "\n      " + category;
     }
     
@@ -0,0 +1,26 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The columns of the project table, used to ask for a subset of a project's fields.
+ */
+public enum ProjectColumn {
+  PROJECT_ID("project_id"),
+  PROJECT_NAME("project_name"),
+  ESTIMATED_HOURS("estimated_hours"),
+  ACTUAL_HOURS("actual_hours"),
+  DIFFICULTY("difficulty"),
+  NOTES("notes");
+
+  private final String columnName;
+
+  private ProjectColumn(String columnName) {
+    this.columnName = columnName;
+  }
+
+  public String getColumnName() {
+    return columnName;
+  }
+}
@@ -0,0 +1,35 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The material cost and hours of one project, computed by the database. Amounts are in hundredths
+ * (see {@link Hundredths}). The material cost is the sum of num_required * cost over the project's
+ * materials, counting materials with no quantity or cost as zero. Hours are {@link Hundredths#NULL}
+ * where the project has none recorded.
+ */
+public record ProjectCostSummary(int projectId, String projectName, int difficulty,
+    long materialCostHundredths, long estimatedHoursHundredths, long actualHoursHundredths) {
+
+  /**
+   * @return Actual minus estimated hours, in hundredths. Positive means the project overran. It is
+   *         {@link Hundredths#NULL} unless both are recorded.
+   */
+  public long hourVarianceHundredths() {
+    if(estimatedHoursHundredths == Hundredths.NULL || actualHoursHundredths == Hundredths.NULL) {
+      return Hundredths.NULL;
+    }
+
+    return actualHoursHundredths - estimatedHoursHundredths;
+  }
+
+  @Override
+  public String toString() {
+    return projectId + ": " + projectName + ", difficulty=" + difficulty + ", materialCost="
+        + Hundredths.toString(materialCostHundredths) + ", estimatedHours="
+        + Hundredths.toString(estimatedHoursHundredths) + ", actualHours="
+        + Hundredths.toString(actualHoursHundredths) + ", variance="
+        + Hundredths.toString(hourVarianceHundredths());
+  }
+}
@@ -0,0 +1,22 @@
+/**
+ * 
+ */
+package projects.entity;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of a keyset-paginated project listing.
+ *
+ * @param projects The projects on this page, ordered by name and then ID. The list is
+ *        unmodifiable.
+ * @param nextPageToken An opaque token that fetches the following page, or null if this is the
+ *        last page.
+ */
+public record ProjectPage(List<Project> projects, String nextPageToken) {
+
+  public boolean hasNextPage() {
+    return Objects.nonNull(nextPageToken);
+  }
+}
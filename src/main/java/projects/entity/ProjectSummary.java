@@ -0,0 +1,15 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The ID and name of a project, for listings that don't need the other columns.
+ */
+public record ProjectSummary(Integer projectId, String projectName) {
+
+  @Override
+  public String toString() {
+    return projectId + ": " + projectName;
+  }
+}
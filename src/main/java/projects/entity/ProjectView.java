@@ -0,0 +1,52 @@
+/**
+ * 
+ */
+package projects.entity;
+
+import java.util.List;
+
+/**
+ * The read-only form of a {@link Project}, for listing and reporting. Hours are in hundredths (see
+ * {@link Hundredths}). The child lists are unmodifiable, so a view can be shared between threads
+ * and kept in caches. A view read without its children has empty lists.
+ */
+public record ProjectView(int projectId, String projectName, long estimatedHoursHundredths,
+    long actualHoursHundredths, int difficulty, String notes, int version,
+    List<MaterialView> materials, List<StepView> steps, List<CategoryView> categories) {
+
+  public ProjectView {
+    materials = List.copyOf(materials);
+    steps = List.copyOf(steps);
+    categories = List.copyOf(categories);
+  }
+
+  /**
+   * @return A copy of this view with the given children.
+   */
+  public ProjectView withChildren(List<MaterialView> materials, List<StepView> steps,
+      List<CategoryView> categories) {
+    return new ProjectView(projectId, projectName, estimatedHoursHundredths, actualHoursHundredths,
+        difficulty, notes, version, materials, steps, categories);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder()
+        .append("\n   ID=").append(projectId)
+        .append("\n   name=").append(projectName)
+        .append("\n   estimatedHours=").append(Hundredths.toString(estimatedHoursHundredths))
+        .append("\n   actualHours=").append(Hundredths.toString(actualHoursHundredths))
+        .append("\n   difficulty=").append(difficulty)
+        .append("\n   notes=").append(notes)
+        .append("\n   version=").append(version)
+        .append("\n   Materials:");
+
+    materials.forEach(material -> result.append("\n      ").append(material));
+    result.append("\n   Steps:");
+    steps.forEach(step -> result.append("\n      ").append(step));
+    result.append("\n   Categories:");
+    categories.forEach(category -> result.append("\n      ").append(category));
+
+    return result.toString();
+  }
+}
@@ -0,0 +1,15 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The read-only form of a {@link Step}.
+ */
+public record StepView(int stepId, int projectId, String stepText, int stepOrder) {
+
+  @Override
+  public String toString() {
+    return "ID=" + stepId + ", stepText=" + stepText;
+  }
+}
@@ -0,0 +1,13 @@
+package projects.exception;
+
+/**
+ * Thrown when an update is rejected because the row was changed by someone else after it was read.
+ * The caller should re-read the row and reapply its changes.
+ */
+@SuppressWarnings("serial")
+public class OptimisticLockException extends DbException {
+
+	public OptimisticLockException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,291 @@
+package projects.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import util.DaoBase;
+
+/**
+ * Records what the DAO layer does: the latency and row count of every statement, how long each
+ * transaction stays open and how long callers wait for a pooled connection. Statements and
+ * transactions are attributed to the DAO method that borrowed the connection, found by walking the
+ * stack once per borrowed connection.
+ *
+ * Recording is off by default. Turn it on with -Dprojects.metrics.enabled=true or through the
+ * Enabled attribute of the projects:type=DaoMetrics MBean. While it and the {@link SlowQueryLog}
+ * are off, {@link projects.dao.DbConnection#getConnection()} hands out the pooled connection
+ * unwrapped, so the only cost is reading two volatile flags.
+ *
+ * While it is on, the report is printed every -Dprojects.metrics.dumpSeconds seconds (60 by
+ * default, 0 to disable).
+ */
+public class DaoMetrics implements DaoMetricsMXBean {
+  private static final DaoMetrics INSTANCE = new DaoMetrics();
+
+  private static final long DUMP_SECONDS = Long.getLong("projects.metrics.dumpSeconds", 60);
+
+  private static final StackWalker WALKER =
+      StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+  private static volatile boolean enabled = Boolean.getBoolean("projects.metrics.enabled");
+
+  /**
+   * The counters of one SQL statement issued by one DAO method.
+   */
+  static class StatementStats {
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LongAdder rows = new LongAdder();
+  }
+
+  private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> transactions = new ConcurrentHashMap<>();
+  private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+
+  private ScheduledExecutorService dumper;
+
+  static {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+          new ObjectName("projects:type=DaoMetrics"));
+    }
+    catch(JMException e) {
+      System.err.println("Unable to register the DAO metrics MBean: " + e);
+    }
+
+    if(enabled) {
+      INSTANCE.startDumper();
+    }
+  }
+
+  private DaoMetrics() {
+  }
+
+  /**
+   * @return The shared metrics registry.
+   */
+  public static DaoMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return true if DAO activity is being recorded. Callers check this before doing any work to
+   *         record something.
+   */
+  public static boolean isRecording() {
+    return enabled;
+  }
+
+  /**
+   * Wraps a freshly borrowed connection so that its statements and transactions are recorded and
+   * slow statements are written to the {@link SlowQueryLog}.
+   *
+   * @param conn The pooled connection.
+   * @param acquireNanos How long the caller waited for it.
+   * @return The instrumented connection. Closing it closes the pooled connection.
+   */
+  public static Connection instrument(Connection conn, long acquireNanos) {
+    if(enabled) {
+      INSTANCE.connectionAcquire.record(acquireNanos);
+    }
+
+    String serviceCall = SlowQueryLog.isEnabled() ? findServiceCall() : null;
+    return InstrumentedConnection.wrap(conn, findCaller(), serviceCall, INSTANCE);
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public synchronized void setEnabled(boolean value) {
+    enabled = value;
+
+    if(value) {
+      startDumper();
+    }
+  }
+
+  StatementStats statement(String caller, String sql) {
+    return statements.computeIfAbsent(caller + ": " + sql, key -> new StatementStats());
+  }
+
+  LatencyHistogram transaction(String caller) {
+    return transactions.computeIfAbsent(caller, key -> new LatencyHistogram());
+  }
+
+  @Override
+  public Map<String, Long> getStatementCounts() {
+    return collect(statements, stats -> stats.latency.getCount());
+  }
+
+  @Override
+  public Map<String, Long> getRowsReturned() {
+    return collect(statements, stats -> stats.rows.sum());
+  }
+
+  @Override
+  public Map<String, Long> getStatementP50Micros() {
+    return collect(statements, stats -> micros(stats.latency.getValueAtPercentile(50)));
+  }
+
+  @Override
+  public Map<String, Long> getStatementP99Micros() {
+    return collect(statements, stats -> micros(stats.latency.getValueAtPercentile(99)));
+  }
+
+  @Override
+  public Map<String, Long> getStatementP999Micros() {
+    return collect(statements, stats -> micros(stats.latency.getValueAtPercentile(99.9)));
+  }
+
+  @Override
+  public Map<String, Long> getTransactionP99Micros() {
+    return collect(transactions, histogram -> micros(histogram.getValueAtPercentile(99)));
+  }
+
+  @Override
+  public long getConnectionAcquireP50Micros() {
+    return micros(connectionAcquire.getValueAtPercentile(50));
+  }
+
+  @Override
+  public long getConnectionAcquireP99Micros() {
+    return micros(connectionAcquire.getValueAtPercentile(99));
+  }
+
+  /**
+   * @return Every recorded statement and transaction grouped by DAO method, with latency
+   *         percentiles.
+   */
+  @Override
+  public String getReport() {
+    StringBuilder report = new StringBuilder("DAO metrics:\n");
+    report.append("  connection acquire: ").append(connectionAcquire.snapshot()).append('\n');
+
+    Map<String, StringBuilder> byCaller = new TreeMap<>();
+
+    transactions.forEach((caller, histogram) -> byCaller
+        .computeIfAbsent(caller, key -> new StringBuilder())
+        .append("    transaction: ").append(histogram.snapshot()).append('\n'));
+
+    new TreeMap<>(statements).forEach((key, stats) -> {
+      int split = key.indexOf(": ");
+
+      byCaller.computeIfAbsent(key.substring(0, split), caller -> new StringBuilder())
+          .append("    ").append(abbreviate(key.substring(split + 2))).append('\n')
+          .append("      rows=").append(stats.rows.sum()).append(' ')
+          .append(stats.latency.snapshot()).append('\n');
+    });
+
+    byCaller.forEach((caller, lines) -> report.append("  ").append(caller).append('\n')
+        .append(lines));
+
+    return report.toString();
+  }
+
+  @Override
+  public void reset() {
+    statements.clear();
+    transactions.clear();
+    connectionAcquire.reset();
+  }
+
+  private void startDumper() {
+    if(dumper != null || DUMP_SECONDS <= 0) {
+      return;
+    }
+
+    dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "dao-metrics-dump");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    dumper.scheduleAtFixedRate(() -> {
+      if(enabled && connectionAcquire.getCount() > 0) {
+        System.out.println(getReport());
+      }
+    }, DUMP_SECONDS, DUMP_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /*
+   * The DAO method is the outermost frame of the first run of DAO frames on the stack, so
+   * fetchProjectById is reported rather than the private helper that borrowed the connection. A
+   * lazy loader or a parallel child load runs in a lambda; it is reported under the method that
+   * created the lambda.
+   */
+  private static String findCaller() {
+    Optional<StackWalker.StackFrame> frame = WALKER.walk(frames -> frames
+        .dropWhile(f -> !isDao(f.getDeclaringClass()))
+        .takeWhile(f -> isDao(f.getDeclaringClass()))
+        .reduce((inner, outer) -> outer));
+
+    if(frame.isEmpty()) {
+      frame = WALKER.walk(frames -> frames
+          .filter(f -> !f.getClassName().startsWith("projects.metrics.")
+              && !f.getClassName().startsWith("projects.dao.DbConnection"))
+          .findFirst());
+    }
+
+    return frame.map(f -> f.getDeclaringClass().getSimpleName() + "." + methodName(f))
+        .orElse("unknown");
+  }
+
+  /*
+   * The service call is found the same way as the DAO method: the outermost frame of the first run
+   * of service frames, which is the method the application called.
+   */
+  private static String findServiceCall() {
+    return WALKER.walk(frames -> frames
+        .dropWhile(f -> !isService(f))
+        .takeWhile(f -> isService(f))
+        .reduce((inner, outer) -> outer))
+        .map(f -> f.getDeclaringClass().getSimpleName() + "." + methodName(f))
+        .orElse("-");
+  }
+
+  private static boolean isService(StackWalker.StackFrame frame) {
+    return frame.getClassName().startsWith("projects.service.");
+  }
+
+  private static boolean isDao(Class<?> type) {
+    return DaoBase.class.isAssignableFrom(type) && type != DaoBase.class;
+  }
+
+  private static String methodName(StackWalker.StackFrame frame) {
+    String name = frame.getMethodName();
+
+    if(name.startsWith("lambda$")) {
+      int end = name.indexOf('$', 7);
+      return name.substring(7, end < 0 ? name.length() : end);
+    }
+
+    return name;
+  }
+
+  private static <T> Map<String, Long> collect(Map<String, T> source, ToLongFunction<T> value) {
+    Map<String, Long> result = new TreeMap<>();
+    source.forEach((key, stats) -> result.put(key, value.applyAsLong(stats)));
+    return result;
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  private static String abbreviate(String sql) {
+    String flat = sql.replaceAll("\\s+", " ").trim();
+    return flat.length() <= 100 ? flat : flat.substring(0, 97) + "...";
+  }
+}
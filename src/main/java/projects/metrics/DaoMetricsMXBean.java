@@ -0,0 +1,33 @@
+package projects.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link DaoMetrics}, registered as projects:type=DaoMetrics. Latencies are in
+ * microseconds. Statement keys have the form "DaoClass.method: SQL".
+ */
+public interface DaoMetricsMXBean {
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  Map<String, Long> getStatementCounts();
+
+  Map<String, Long> getRowsReturned();
+
+  Map<String, Long> getStatementP50Micros();
+
+  Map<String, Long> getStatementP99Micros();
+
+  Map<String, Long> getStatementP999Micros();
+
+  Map<String, Long> getTransactionP99Micros();
+
+  long getConnectionAcquireP50Micros();
+
+  long getConnectionAcquireP99Micros();
+
+  String getReport();
+
+  void reset();
+}
@@ -0,0 +1,363 @@
+package projects.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * The proxies that feed {@link DaoMetrics} and the {@link SlowQueryLog}. The connection proxy times
+ * transactions and hands out statement proxies. The statement proxies remember the bound
+ * parameters, time every execute call and hand out result set proxies that count rows as they are
+ * read.
+ *
+ * A transaction is timed from setAutoCommit(false), or from the first statement after a commit or
+ * rollback while auto-commit stays off, until the next commit, rollback or close. One
+ * instrumented connection is used by one borrower, like the pooled connection it wraps, so this
+ * state is kept in plain fields.
+ */
+class InstrumentedConnection implements InvocationHandler {
+  private final Connection target;
+  private final String caller;
+  private final String serviceCall;
+  private final DaoMetrics metrics;
+  private boolean autoCommitOff;
+  private long transactionStart;
+
+  /**
+   * A statement's SQL and the parameters bound to it so far. An execution that hasn't finished yet
+   * reads the parameters from here, so it is made to copy them before they are changed.
+   */
+  private static class Bindings {
+    String sql;
+    Object[] parameters = new Object[8];
+    int count;
+    int batchSize;
+    Execution pending;
+
+    Bindings(String sql) {
+      this.sql = sql;
+    }
+
+    void set(int index, Object value) {
+      detach();
+
+      if(index > parameters.length) {
+        parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+      }
+
+      parameters[index - 1] = value;
+      count = Math.max(count, index);
+    }
+
+    void clear() {
+      detach();
+      Arrays.fill(parameters, 0, count, null);
+      count = 0;
+    }
+
+    private void detach() {
+      if(pending != null) {
+        pending.captureParameters();
+        pending = null;
+      }
+    }
+  }
+
+  /**
+   * One execution that may go to the slow query log. A query's execution ends when its result set
+   * is exhausted or closed. The parameters are only copied if the execution turns out to be slow,
+   * or if the statement is rebound before the execution ends.
+   */
+  private class Execution {
+    private final Bindings bindings;
+    private final String sql;
+    private final int batchSize;
+    private final long start;
+    private Object[] parameters;
+    private long rows;
+    private boolean finished;
+
+    Execution(Bindings bindings, long start) {
+      this.bindings = bindings;
+      this.sql = bindings.sql;
+      this.batchSize = bindings.batchSize;
+      this.start = start;
+      bindings.pending = this;
+    }
+
+    void captureParameters() {
+      if(parameters == null) {
+        parameters = Arrays.copyOf(bindings.parameters, bindings.count);
+      }
+    }
+
+    void finish(long moreRows) {
+      if(finished) {
+        return;
+      }
+
+      finished = true;
+      rows += moreRows;
+      long elapsed = System.nanoTime() - start;
+
+      if(SlowQueryLog.isSlow(elapsed)) {
+        captureParameters();
+        SlowQueryLog.submit(new SlowQueryLog.Entry(System.currentTimeMillis(), elapsed, rows,
+            batchSize, sql, parameters, caller, serviceCall == null ? "-" : serviceCall));
+      }
+
+      if(bindings.pending == this) {
+        bindings.pending = null;
+      }
+    }
+  }
+
+  private InstrumentedConnection(Connection target, String caller, String serviceCall,
+      DaoMetrics metrics) {
+    this.target = target;
+    this.caller = caller;
+    this.serviceCall = serviceCall;
+    this.metrics = metrics;
+  }
+
+  static Connection wrap(Connection target, String caller, String serviceCall,
+      DaoMetrics metrics) {
+    return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[] {Connection.class},
+        new InstrumentedConnection(target, caller, serviceCall, metrics));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String name = method.getName();
+
+    switch(name) {
+      case "equals":
+        return proxy == args[0];
+
+      case "hashCode":
+        return System.identityHashCode(proxy);
+
+      case "commit":
+      case "close":
+        endTransaction();
+        break;
+
+      case "rollback":
+        if(args == null) {
+          endTransaction();
+        }
+        break;
+
+      case "setAutoCommit":
+        autoCommitOff = Boolean.FALSE.equals(args[0]);
+
+        if(autoCommitOff) {
+          beginTransaction();
+        }
+        else {
+          endTransaction();
+        }
+        break;
+
+      default:
+        break;
+    }
+
+    Object result = call(target, method, args);
+
+    switch(name) {
+      case "prepareStatement":
+        return wrapStatement((Statement)result, PreparedStatement.class, (String)args[0], proxy);
+
+      case "createStatement":
+        return wrapStatement((Statement)result, Statement.class, null, proxy);
+
+      default:
+        return result;
+    }
+  }
+
+  private void beginTransaction() {
+    if(autoCommitOff && transactionStart == 0) {
+      transactionStart = System.nanoTime();
+    }
+  }
+
+  private void endTransaction() {
+    if(transactionStart != 0) {
+      if(DaoMetrics.isRecording()) {
+        metrics.transaction(caller).record(System.nanoTime() - transactionStart);
+      }
+
+      transactionStart = 0;
+    }
+  }
+
+  private Statement wrapStatement(Statement stmt, Class<? extends Statement> type, String sql,
+      Object connection) {
+    /* A plain Statement carries its SQL in each execute call, so remember the last one. */
+    Bindings bindings = new Bindings(sql == null ? "batch" : sql);
+
+    InvocationHandler handler = (proxy, method, args) -> {
+      String name = method.getName();
+
+      switch(name) {
+        case "getConnection":
+          return connection;
+
+        case "equals":
+          return proxy == args[0];
+
+        case "hashCode":
+          return System.identityHashCode(proxy);
+
+        case "getResultSet":
+          return wrapResultSet((ResultSet)call(stmt, method, args), statementStats(bindings.sql),
+              execution(bindings, System.nanoTime()));
+
+        case "clearParameters":
+          bindings.clear();
+          break;
+
+        case "addBatch":
+          bindings.batchSize++;
+          break;
+
+        case "clearBatch":
+          bindings.batchSize = 0;
+          break;
+
+        default:
+          if(name.startsWith("set") && args != null && args.length >= 2
+              && args[0] instanceof Integer index) {
+            bindings.set(index, name.equals("setNull") ? null : args[1]);
+          }
+          break;
+      }
+
+      if(!name.startsWith("execute")) {
+        return call(stmt, method, args);
+      }
+
+      if(sql == null && args != null && args[0] instanceof String text) {
+        bindings.sql = text;
+      }
+
+      DaoMetrics.StatementStats stats = statementStats(bindings.sql);
+      beginTransaction();
+      long start = System.nanoTime();
+      Execution execution = execution(bindings, start);
+      Object result = null;
+
+      try {
+        result = call(stmt, method, args);
+      }
+      finally {
+        if(stats != null) {
+          stats.latency.record(System.nanoTime() - start);
+        }
+
+        if(execution != null && !(result instanceof ResultSet)) {
+          execution.finish(updateCount(result));
+        }
+
+        if(name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+          bindings.batchSize = 0;
+        }
+      }
+
+      return result instanceof ResultSet rs ? wrapResultSet(rs, stats, execution) : result;
+    };
+
+    return (Statement)Proxy.newProxyInstance(Statement.class.getClassLoader(),
+        new Class<?>[] {type}, handler);
+  }
+
+  private DaoMetrics.StatementStats statementStats(String sql) {
+    return DaoMetrics.isRecording() ? metrics.statement(caller, sql) : null;
+  }
+
+  private Execution execution(Bindings bindings, long start) {
+    return SlowQueryLog.isEnabled() ? new Execution(bindings, start) : null;
+  }
+
+  private static long updateCount(Object result) {
+    if(result instanceof Number count) {
+      return count.longValue();
+    }
+
+    if(result instanceof int[] counts) {
+      return Arrays.stream(counts).filter(count -> count > 0).asLongStream().sum();
+    }
+
+    if(result instanceof long[] counts) {
+      return Arrays.stream(counts).filter(count -> count > 0).sum();
+    }
+
+    return 0;
+  }
+
+  private static ResultSet wrapResultSet(ResultSet rs, DaoMetrics.StatementStats stats,
+      Execution execution) {
+    if(rs == null || (stats == null && execution == null)) {
+      return rs;
+    }
+
+    InvocationHandler handler = (proxy, method, args) -> {
+      switch(method.getName()) {
+        case "equals":
+          return proxy == args[0];
+
+        case "hashCode":
+          return System.identityHashCode(proxy);
+
+        case "next":
+          boolean hasRow = rs.next();
+
+          if(hasRow) {
+            if(stats != null) {
+              stats.rows.increment();
+            }
+
+            if(execution != null) {
+              execution.rows++;
+            }
+          }
+          else if(execution != null) {
+            execution.finish(0);
+          }
+
+          return hasRow;
+
+        case "close":
+          if(execution != null) {
+            execution.finish(0);
+          }
+
+          return call(rs, method, args);
+
+        default:
+          return call(rs, method, args);
+      }
+    };
+
+    return (ResultSet)Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class}, handler);
+  }
+
+  private static Object call(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    }
+    catch(InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
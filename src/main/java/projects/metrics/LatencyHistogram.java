@@ -0,0 +1,153 @@
+package projects.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent latency histogram with log-linear buckets, in the style of HdrHistogram. Values
+ * below 64 ns each get their own bucket. Above that, every power of two is split into 32 buckets,
+ * so a reported percentile is within about 3% of the true value across the whole range from
+ * nanoseconds to hours. Recording is a bucket index computation and an atomic increment.
+ *
+ * Percentiles are read from the live counters without stopping writers, so a report taken while
+ * values are being recorded can be off by the values recorded during the read.
+ */
+public class LatencyHistogram {
+  private static final int LINEAR_BUCKETS = 64;
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * A point-in-time summary. All times are in nanoseconds.
+   */
+  public record Snapshot(long count, long mean, long p50, long p99, long p999, long max) {
+
+    @Override
+    public String toString() {
+      return String.format("count=%d mean=%s p50=%s p99=%s p999=%s max=%s", count, format(mean),
+          format(p50), format(p99), format(p999), format(max));
+    }
+
+    private static String format(long nanos) {
+      if(nanos < 10_000) {
+        return nanos + "ns";
+      }
+
+      if(nanos < 10_000_000) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+      }
+
+      return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+    }
+  }
+
+  /**
+   * Records one value.
+   *
+   * @param nanos The latency in nanoseconds. Negative values are recorded as zero.
+   */
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+
+    counts.incrementAndGet(indexOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * @return The number of values recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the value at the given percentile. As in HdrHistogram, the result is the highest value
+   * that falls into the same bucket as the percentile value.
+   *
+   * @param percentile A percentile between 0 and 100.
+   * @return The value in nanoseconds, or 0 if nothing has been recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long total = 0;
+
+    for(int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+
+    if(total == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long)Math.ceil(total * percentile / 100));
+    long seen = 0;
+
+    for(int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+
+      if(seen >= target) {
+        return Math.min(highestValueIn(i), max.get());
+      }
+    }
+
+    return max.get();
+  }
+
+  /**
+   * @return The count, mean, p50, p99, p99.9 and maximum.
+   */
+  public Snapshot snapshot() {
+    long n = count.sum();
+
+    return new Snapshot(n, n == 0 ? 0 : sum.sum() / n, getValueAtPercentile(50),
+        getValueAtPercentile(99), getValueAtPercentile(99.9), max.get());
+  }
+
+  /**
+   * Clears all recorded values.
+   */
+  public void reset() {
+    for(int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  /*
+   * Values below 64 map to themselves. A larger value with highest bit e maps to bucket
+   * (e - 5) * 32 + (its top six bits), which runs on from 64 without gaps.
+   */
+  private static int indexOf(long value) {
+    if(value < LINEAR_BUCKETS) {
+      return (int)value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+
+    return shift * SUB_BUCKETS + (int)(value >>> shift);
+  }
+
+  private static long highestValueIn(int index) {
+    if(index < LINEAR_BUCKETS) {
+      return index;
+    }
+
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,309 @@
+package projects.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes statements that take longer than a threshold to a local log file, with their bound
+ * parameters, elapsed time, row count, the DAO method that ran them and the service call that led
+ * there. Set the threshold to 0 to trace every statement.
+ *
+ * A query's time runs from the execute call until its result set is exhausted or closed, so a
+ * query that is quick to start but slow to read is still caught. For other statements the rows
+ * are the update count.
+ *
+ * The statement thread only puts an entry on a bounded queue. A background thread formats the
+ * entries and appends them to the file. If the queue is full the entry is dropped and counted
+ * rather than making the caller wait. A batch that can't be written is counted as dropped too. The file is rolled when it reaches the size limit: the
+ * current file becomes .1, .1 becomes .2 and so on, and the oldest is deleted.
+ *
+ * Parameters bound to a redacted column are written as &lt;redacted&gt;. The column of each
+ * parameter is taken from the SQL: the column list of an INSERT, or the column compared with the
+ * parameter (project_id = ?, project_name &gt; ?, project_id IN (?, ?)).
+ *
+ * Settings (system properties):
+ * <ul>
+ * <li>projects.slowlog.enabled - true to turn the log on. Default false.</li>
+ * <li>projects.slowlog.thresholdMs - the minimum elapsed time logged. Default 500.</li>
+ * <li>projects.slowlog.file - the log file. Default logs/slow-query.log.</li>
+ * <li>projects.slowlog.maxBytes - the size at which the file is rolled. Default 10 MB.</li>
+ * <li>projects.slowlog.maxFiles - the number of rolled files kept. Default 5.</li>
+ * <li>projects.slowlog.redact - comma-separated column names whose values are not written, or *
+ * for all parameters. Default notes.</li>
+ * </ul>
+ */
+public class SlowQueryLog {
+  private static final int QUEUE_CAPACITY = 10_000;
+  private static final int MAX_VALUE_LENGTH = 64;
+  private static final String REDACTED = "<redacted>";
+
+  private static final Pattern INSERT = Pattern.compile(
+      "^\\s*INSERT\\s+INTO\\s+\\S+\\s*\\(([^)]*)\\)\\s*VALUES", Pattern.CASE_INSENSITIVE);
+  private static final Pattern COMPARED_COLUMN = Pattern.compile(
+      "([A-Za-z_][A-Za-z0-9_.]*)\\s*(?:=|<>|!=|<=|>=|<|>|\\bLIKE\\b|\\bIN\\s*\\()[\\s?,]*$",
+      Pattern.CASE_INSENSITIVE);
+
+  private static volatile boolean enabled = Boolean.getBoolean("projects.slowlog.enabled");
+  private static volatile long thresholdNanos = TimeUnit.MILLISECONDS
+      .toNanos(Long.getLong("projects.slowlog.thresholdMs", 500));
+
+  private static final Path FILE = Path.of(System.getProperty("projects.slowlog.file",
+      "logs/slow-query.log"));
+  private static final long MAX_BYTES = Long.getLong("projects.slowlog.maxBytes", 10L << 20);
+  private static final int MAX_FILES = Integer.getInteger("projects.slowlog.maxFiles", 5);
+  private static final Set<String> REDACTED_COLUMNS =
+      parseColumns(System.getProperty("projects.slowlog.redact", "notes"));
+
+  private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private static final LongAdder DROPPED = new LongAdder();
+  private static final Map<String, String[]> COLUMNS_BY_SQL = new ConcurrentHashMap<>();
+
+  /**
+   * The writer thread, started when the class is first used. The class is only loaded once a
+   * statement has been found slow, so an application that never logs never starts it.
+   */
+  private static final class Writer {
+    static {
+      Thread writer = new Thread(SlowQueryLog::drain, "slow-query-log");
+      writer.setDaemon(true);
+      writer.start();
+    }
+
+    private Writer() {
+    }
+
+    static void ensureStarted() {
+    }
+  }
+
+  /**
+   * One logged statement, as captured on the statement thread.
+   */
+  record Entry(long timestampMillis, long elapsedNanos, long rows, int batchSize, String sql,
+      Object[] parameters, String daoMethod, String serviceCall) {
+  }
+
+  private SlowQueryLog() {
+  }
+
+  /**
+   * @return true if statements are being checked against the threshold.
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean value) {
+    enabled = value;
+  }
+
+  /**
+   * @param millis The minimum elapsed time that is logged. 0 logs every statement.
+   */
+  public static void setThresholdMillis(long millis) {
+    thresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * @return The number of entries dropped because the writer fell behind or couldn't write them.
+   */
+  public static long getDroppedCount() {
+    return DROPPED.sum();
+  }
+
+  static boolean isSlow(long elapsedNanos) {
+    return enabled && elapsedNanos >= thresholdNanos;
+  }
+
+  /**
+   * Queues an entry for the writer thread. Never blocks.
+   */
+  static void submit(Entry entry) {
+    Writer.ensureStarted();
+
+    if(!QUEUE.offer(entry)) {
+      DROPPED.increment();
+    }
+  }
+
+  private static void drain() {
+    List<Entry> batch = new ArrayList<>();
+
+    while(true) {
+      try {
+        batch.add(QUEUE.take());
+        QUEUE.drainTo(batch);
+        write(batch);
+      }
+      catch(InterruptedException e) {
+        return;
+      }
+      catch(IOException | RuntimeException e) {
+        /*
+         * Count the batch as dropped (part of it may have reached the file) and keep the writer
+         * running, so later entries are still written.
+         */
+        DROPPED.add(batch.size());
+        System.err.println("Unable to write the slow query log " + FILE + ": " + e);
+      }
+      finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private static void write(List<Entry> entries) throws IOException {
+    if(FILE.getParent() != null) {
+      Files.createDirectories(FILE.getParent());
+    }
+
+    if(Files.exists(FILE) && Files.size(FILE) >= MAX_BYTES) {
+      roll();
+    }
+
+    try(BufferedWriter out = Files.newBufferedWriter(FILE, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      for(Entry entry : entries) {
+        out.write(format(entry));
+        out.newLine();
+      }
+    }
+  }
+
+  private static void roll() throws IOException {
+    Path oldest = rolled(MAX_FILES);
+    Files.deleteIfExists(oldest);
+
+    for(int index = MAX_FILES - 1; index >= 1; index--) {
+      Path file = rolled(index);
+
+      if(Files.exists(file)) {
+        Files.move(file, rolled(index + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+
+    Files.move(FILE, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static Path rolled(int index) {
+    return FILE.resolveSibling(FILE.getFileName() + "." + index);
+  }
+
+  static String format(Entry entry) {
+    LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.timestampMillis()),
+        ZoneId.systemDefault());
+
+    StringBuilder line = new StringBuilder(256)
+        .append(time)
+        .append(" elapsed=").append(TimeUnit.NANOSECONDS.toMicros(entry.elapsedNanos()) / 1000.0)
+        .append("ms rows=").append(entry.rows());
+
+    if(entry.batchSize() > 0) {
+      line.append(" batch=").append(entry.batchSize());
+    }
+
+    return line.append(" service=").append(entry.serviceCall())
+        .append(" dao=").append(entry.daoMethod())
+        .append(" sql=\"").append(entry.sql().replaceAll("\\s+", " ").trim()).append('"')
+        .append(" params=").append(formatParameters(entry.sql(), entry.parameters()))
+        .toString();
+  }
+
+  private static String formatParameters(String sql, Object[] parameters) {
+    String[] columns = COLUMNS_BY_SQL.computeIfAbsent(sql, SlowQueryLog::parameterColumns);
+    StringJoiner values = new StringJoiner(", ", "[", "]");
+
+    for(int index = 0; index < parameters.length; index++) {
+      String column = index < columns.length ? columns[index] : null;
+
+      if(REDACTED_COLUMNS.contains("*") || (column != null && REDACTED_COLUMNS.contains(column))) {
+        values.add(REDACTED);
+      }
+      else {
+        values.add(formatValue(parameters[index]));
+      }
+    }
+
+    return values.toString();
+  }
+
+  private static String formatValue(Object value) {
+    if(value == null) {
+      return "NULL";
+    }
+
+    if(value instanceof Number && !(value instanceof BigDecimal)) {
+      return value.toString();
+    }
+
+    String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+
+    if(text.length() > MAX_VALUE_LENGTH) {
+      text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+    }
+
+    return "'" + text.replace("'", "''") + "'";
+  }
+
+  /**
+   * Works out which column each parameter marker of a statement is bound to. Markers whose column
+   * can't be determined are null.
+   */
+  static String[] parameterColumns(String sql) {
+    List<String> columns = new ArrayList<>();
+    Matcher insert = INSERT.matcher(sql);
+
+    if(insert.find()) {
+      Arrays.stream(insert.group(1).split(",")).map(SlowQueryLog::normalize).forEach(columns::add);
+      return columns.toArray(String[]::new);
+    }
+
+    for(int index = sql.indexOf('?'); index >= 0; index = sql.indexOf('?', index + 1)) {
+      Matcher compared = COMPARED_COLUMN.matcher(sql.substring(0, index));
+      columns.add(compared.find() ? normalize(compared.group(1)) : null);
+    }
+
+    return columns.toArray(String[]::new);
+  }
+
+  private static String normalize(String column) {
+    String name = column.trim().toLowerCase(Locale.ROOT);
+    return name.substring(name.lastIndexOf('.') + 1);
+  }
+
+  private static Set<String> parseColumns(String list) {
+    Set<String> columns = new HashSet<>();
+
+    for(String column : list.split(",")) {
+      if(!column.isBlank()) {
+        columns.add(normalize(column));
+      }
+    }
+
+    return columns;
+  }
+}
@@ -0,0 +1,197 @@
+package projects.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import projects.dao.DbConnection;
+import projects.dao.FetchStrategy;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+/**
+ * An asynchronous front end to {@link ProjectService} for callers that drive the service from many
+ * concurrent workers. Every call runs on its own virtual thread, so blocking JDBC calls are cheap to
+ * fan out.
+ *
+ * The number of connections that calls may hold at the same time is capped at the connection
+ * pool's maximum size. A call takes one permit per connection it can hold at once, so a
+ * {@link FetchStrategy#PARALLEL} load takes three. Calls above the cap wait for their permits
+ * (parking their virtual thread) rather than queuing inside the pool, where they could time out.
+ *
+ * The pool, the cache and the MySQL driver use java.util.concurrent locks rather than synchronized
+ * blocks, so a virtual thread blocked in them does not pin its carrier thread.
+ */
+public class AsyncProjectService implements AutoCloseable {
+	private final ProjectService projectService;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final int maxConcurrency;
+	private final Semaphore permits;
+
+	public AsyncProjectService() {
+		this(new ProjectService(), DbConnection.getMaxPoolSize());
+	}
+
+	/**
+	 * @param projectService the service that does the work
+	 * @param maxConcurrency the maximum number of connections calls may hold at once. This should not
+	 *                       exceed the connection pool size.
+	 */
+	public AsyncProjectService(ProjectService projectService, int maxConcurrency) {
+		this.projectService = projectService;
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency, true);
+	}
+
+	public CompletableFuture<Project> addProject(Project project) {
+		return submit(() -> projectService.addProject(project));
+	}
+
+	public CompletableFuture<List<Project>> fetchAllProjects() {
+		return submit(projectService::fetchAllProjects);
+	}
+
+	public CompletableFuture<Project> fetchProjectById(Integer projectId) {
+		return submit(() -> projectService.fetchProjectById(projectId));
+	}
+
+	/**
+	 * Load a project with the given strategy on a cache miss. The call takes as many permits as the
+	 * strategy can hold connections.
+	 */
+	public CompletableFuture<Project> fetchProjectById(Integer projectId, FetchStrategy strategy) {
+		return submit(strategy.getMaxConnections(), () -> projectService.fetchProjectById(projectId, strategy));
+	}
+
+	/**
+	 * Load several projects concurrently, one virtual thread per project. As soon as a load fails,
+	 * the loads still running are cancelled and the returned future fails with that error, whatever
+	 * the position of its ID.
+	 *
+	 * @param projectIds the IDs to load
+	 * @return the projects, in the order their IDs were given
+	 */
+	public CompletableFuture<List<Project>> fetchProjectsConcurrently(Collection<Integer> projectIds) {
+		List<Callable<Project>> tasks = new ArrayList<>(projectIds.size());
+
+		for (Integer projectId : projectIds) {
+			tasks.add(() -> projectService.fetchProjectById(projectId));
+		}
+
+		return CompletableFuture.supplyAsync(() -> forkJoin(tasks), executor);
+	}
+
+	public CompletableFuture<Void> modifyProjectDetails(Project project) {
+		return submit(() -> {
+			projectService.modifyProjectDetails(project);
+			return null;
+		});
+	}
+
+	public CompletableFuture<Void> deleteProject(Integer projectId) {
+		return submit(() -> {
+			projectService.deleteProject(projectId);
+			return null;
+		});
+	}
+
+	/**
+	 * Stop accepting work and wait for calls already submitted to finish.
+	 */
+	@Override
+	public void close() {
+		executor.close();
+	}
+
+	private <T> CompletableFuture<T> submit(Callable<T> call) {
+		return submit(1, call);
+	}
+
+	private <T> CompletableFuture<T> submit(int connections, Callable<T> call) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return withPermits(connections, call);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	/*
+	 * Runs the call holding one permit per connection it uses, but never more than the service has,
+	 * so a small maxConcurrency can't block a call for good.
+	 */
+	private <T> T withPermits(int connections, Callable<T> call) throws Exception {
+		int count = Math.min(connections, maxConcurrency);
+		permits.acquire(count);
+
+		try {
+			return call.call();
+		} finally {
+			permits.release(count);
+		}
+	}
+
+	/**
+	 * Run the tasks on their own virtual threads and wait for all of them. Tasks are collected in the
+	 * order they finish, so the first task to fail, not the first in the list, is the error thrown
+	 * and stops the rest. A failed fan-out doesn't leave work behind.
+	 *
+	 * Each task runs with one permit. The remaining tasks are stopped without interrupting them:
+	 * interrupting a virtual thread blocked in a JDBC socket read closes the connection's socket. A
+	 * task that is already running its query finishes it; the others see the stop flag once they have
+	 * a permit and return without touching the database.
+	 */
+	private <T> List<T> forkJoin(List<Callable<T>> tasks) {
+		CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+		List<Future<T>> futures = new ArrayList<>(tasks.size());
+		AtomicBoolean stopped = new AtomicBoolean();
+
+		try {
+			for (Callable<T> task : tasks) {
+				futures.add(completion.submit(() -> withPermits(1, () -> {
+					if (stopped.get()) {
+						throw new CancellationException();
+					}
+
+					return task.call();
+				})));
+			}
+
+			for (int done = 0; done < futures.size(); done++) {
+				completion.take().get();
+			}
+
+			List<T> results = new ArrayList<>(futures.size());
+
+			for (Future<T> future : futures) {
+				results.add(future.resultNow());
+			}
+
+			return results;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException) cause : new DbException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while loading projects", e);
+		} finally {
+			stopped.set(true);
+			futures.forEach(future -> future.cancel(false));
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package projects.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import projects.entity.Project;
+
+/**
+ * An in-process, size and time bounded cache of Project aggregates keyed by project ID. When the
+ * cache is full the least recently used entry is evicted. Entries older than the time-to-live are
+ * treated as misses and dropped.
+ * 
+ * Cached projects are shared between callers, so they must be treated as read-only. The service
+ * invalidates an entry whenever the project is modified or deleted.
+ * 
+ * A load that races with a write could otherwise cache the old project after the write has
+ * invalidated it. To prevent that, each project ID has a generation that {@link #invalidate(Integer)}
+ * advances. A loader reads {@link #generation(Integer)} before it reads the database and passes it
+ * to {@link #put(Project, long)}, which drops the project if the generation has moved on since.
+ * Only recently invalidated IDs keep their own generation; when there are more than maxSize of them
+ * they are all forgotten and every ID moves to a new generation, so in-flight loads are not cached.
+ */
+public class ProjectCache {
+
+	/**
+	 * A point-in-time snapshot of the cache counters.
+	 */
+	public record Stats(long hits, long misses, long evictions, int size) {
+
+		public double hitRate() {
+			long requests = hits + misses;
+			return requests == 0 ? 0.0 : (double) hits / requests;
+		}
+	}
+
+	private record Entry(Project project, long expiresAt) {
+	}
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final HashMap<Integer, Long> generations = new HashMap<>();
+	private long lastGeneration;
+	private long baseGeneration;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param maxSize    the maximum number of projects held. Zero disables the cache.
+	 * @param ttlSeconds how long an entry stays valid after it is loaded
+	 */
+	public ProjectCache(int maxSize, long ttlSeconds) {
+		if (maxSize < 0 || ttlSeconds < 0) {
+			throw new IllegalArgumentException("Invalid cache settings: maxSize=" + maxSize + ", ttlSeconds=" + ttlSeconds);
+		}
+
+		this.maxSize = maxSize;
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+	}
+
+	public boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	/**
+	 * @return the cached project, or null if it is not cached or has expired
+	 */
+	public Project get(Integer projectId) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		lock.lock();
+		try {
+			Entry entry = entries.get(projectId);
+
+			if (Objects.nonNull(entry) && entry.expiresAt() - System.nanoTime() > 0) {
+				hits++;
+				return entry.project();
+			}
+
+			if (Objects.nonNull(entry)) {
+				entries.remove(projectId);
+				evictions++;
+			}
+
+			misses++;
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the current generation of the project ID, to be passed to {@link #put(Project, long)}
+	 *         after the project has been read from the database
+	 */
+	public long generation(Integer projectId) {
+		if (!isEnabled()) {
+			return 0;
+		}
+
+		lock.lock();
+		try {
+			return generations.getOrDefault(projectId, baseGeneration);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Caches the project unless it has been invalidated since the given generation was read.
+	 *
+	 * @param generation the value {@link #generation(Integer)} returned before the project was read
+	 */
+	public void put(Project project, long generation) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		lock.lock();
+		try {
+			if (generations.getOrDefault(project.getProjectId(), baseGeneration) != generation) {
+				return;
+			}
+
+			entries.put(project.getProjectId(), new Entry(project, System.nanoTime() + ttlNanos));
+
+			Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+
+			while (entries.size() > maxSize) {
+				eldest.next();
+				eldest.remove();
+				evictions++;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void invalidate(Integer projectId) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		lock.lock();
+		try {
+			entries.remove(projectId);
+			generations.put(projectId, ++lastGeneration);
+
+			if (generations.size() > maxSize) {
+				generations.clear();
+				baseGeneration = lastGeneration;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			entries.clear();
+			generations.clear();
+			baseGeneration = ++lastGeneration;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public Stats getStats() {
+		lock.lock();
+		try {
+			return new Stats(hits, misses, evictions, entries.size());
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -1,21 +1,117 @@
 package projects.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import projects.dao.BulkInsertResult;
+import projects.dao.FetchPlan;
+import projects.dao.FetchStrategy;
 import projects.dao.ProjectDao;
+import projects.dao.ProjectReportDao;
+import projects.dao.ProjectViewDao;
+import projects.entity.Category;
+import projects.entity.CostTotals;
+import projects.entity.Material;
 import projects.entity.Project;
+import projects.entity.ProjectColumn;
+import projects.entity.ProjectCostSummary;
+import projects.entity.ProjectPage;
+import projects.entity.ProjectSummary;
+import projects.entity.ProjectView;
+import projects.entity.Step;
 import projects.exception.DbException;
 
 
 public class ProjectService {
 	private ProjectDao projectDao = new ProjectDao();
+	private ProjectViewDao projectViewDao = new ProjectViewDao(projectDao.getCategoryDictionary());
+	private ProjectReportDao projectReportDao = new ProjectReportDao();
+	private ProjectCache projectCache;
+
+	// The project cache can be sized or switched off with system properties, e.g.
+	// -Dprojects.cache.enabled=false or -Dprojects.cache.maxSize=5000.
+	public ProjectService() {
+		this(Boolean.parseBoolean(System.getProperty("projects.cache.enabled", "true"))
+				? new ProjectCache(Integer.getInteger("projects.cache.maxSize", 1000),
+						Long.getLong("projects.cache.ttlSeconds", 300))
+				: new ProjectCache(0, 0));
+	}
+
+	public ProjectService(ProjectCache projectCache) {
+		this.projectCache = projectCache;
+	}
 	
-	
+// Inserts the project together with its materials, steps and categories in one transaction.
 public Project addProject(Project project) {
-	return projectDao.insertProject(project);
+	return projectDao.insertProjectAggregate(project);
+
+	}
+
+// The add methods below append children to an existing project, each with one batched insert.
+// The cached aggregate is dropped so the next read sees the new children.
+public void addMaterials(Integer projectId, List<Material> materials) {
+	try {
+		projectDao.addMaterialsToProject(projectId, materials);
+	}
+	finally {
+		projectCache.invalidate(projectId);
+	}
+}
+
+public void addSteps(Integer projectId, List<Step> steps) {
+	try {
+		projectDao.addStepsToProject(projectId, steps);
+	}
+	finally {
+		projectCache.invalidate(projectId);
+	}
+}
 
+// Moves a step to just after another step of the same project; pass null to make it the first step.
+public void moveStep(Integer projectId, Integer stepId, Integer afterStepId) {
+	try {
+		if(!projectDao.moveStep(projectId, stepId, afterStepId)) {
+			throw new DbException("Step with ID=" + stepId + " does not exist in project with ID=" + projectId + ".");
+		}
 	}
+	finally {
+		projectCache.invalidate(projectId);
+	}
+}
+
+public void deleteStep(Integer projectId, Integer stepId) {
+	try {
+		if(!projectDao.deleteStep(projectId, stepId)) {
+			throw new DbException("Step with ID=" + stepId + " does not exist in project with ID=" + projectId + ".");
+		}
+	}
+	finally {
+		projectCache.invalidate(projectId);
+	}
+}
+
+public void addCategories(Integer projectId, List<Category> categories) {
+	try {
+		projectDao.addCategoriesToProject(projectId, categories);
+	}
+	finally {
+		projectCache.invalidate(projectId);
+	}
+}
+
+// Imports many projects, with their materials, steps and categories, using batched inserts.
+public BulkInsertResult addProjects(List<Project> projects) {
+	return addProjects(projects, ProjectDao.DEFAULT_CHUNK_SIZE);
+}
+
+public BulkInsertResult addProjects(List<Project> projects, int chunkSize) {
+	return projectDao.insertProjects(projects, chunkSize);
+}
 
 // This method will simply return the results of the method call to the DAO class. 
 // The service class in our small application does not do very much. 
@@ -26,26 +122,151 @@ public List<Project> fetchAllProjects() {
 	// tied to listProjects
 }
 
+// Lightweight listing: only the ID and name of each project are read.
+public List<ProjectSummary> fetchProjectSummaries() {
+	return projectDao.fetchProjectSummaries();
+}
+
+// Reads only the requested project columns (the ID is always included).
+public List<Project> fetchAllProjects(Set<ProjectColumn> columns) {
+	return projectDao.fetchAllProjects(columns);
+}
+
+// Returns one page of projects ordered by name. Pass null for the first page and the previous
+// page's nextPageToken for each page after that.
+public ProjectPage fetchProjectPage(String pageToken, int pageSize) {
+	return projectDao.fetchProjectPage(pageToken, pageSize);
+}
+
+// Streams all projects without loading the table into memory. The stream holds a database
+// connection, so callers must close it (use try-with-resources).
+public Stream<Project> streamAllProjects() {
+	return projectDao.streamAllProjects();
+}
+
+public void forEachProject(Consumer<Project> consumer) {
+	projectDao.forEachProject(consumer);
+}
+
+// Reads through the project cache. The returned project may be shared with other callers, so
+// don't modify it.
 public Project fetchProjectById(Integer projectId) {
-	// TODO Auto-generated method stub
-	return projectDao.fetchProjectById(projectId).orElseThrow(() -> new NoSuchElementException("Project with project ID=" + projectId + " does not exist."));
-	
+	Project project = projectCache.get(projectId);
+
+	if(Objects.isNull(project)) {
+		long generation = projectCache.generation(projectId);
+		project = projectDao.fetchProjectById(projectId).orElseThrow(() -> new NoSuchElementException("Project with project ID=" + projectId + " does not exist."));
+		projectCache.put(project, generation);
+	}
+
+	return project;
+}
+
+// Loads the category dictionary so that the first project load doesn't pay for it. Call again
+// after categories have been changed.
+public void refreshCategories() {
+	projectDao.getCategoryDictionary().refresh();
+}
+
+// Same as fetchProjectById(Integer) but loads the project with the given strategy on a cache miss,
+// e.g. FetchStrategy.PARALLEL to read the child collections concurrently.
+public Project fetchProjectById(Integer projectId, FetchStrategy strategy) {
+	Project project = projectCache.get(projectId);
+
+	if(Objects.isNull(project)) {
+		long generation = projectCache.generation(projectId);
+		project = projectDao.fetchProjectAggregate(projectId, strategy).asOptional().orElseThrow(() -> new NoSuchElementException("Project with project ID=" + projectId + " does not exist."));
+		projectCache.put(project, generation);
+	}
+
+	return project;
+}
+
+// Loads only the child collections named in the plan; the others load when first accessed.
+// A cached aggregate satisfies any plan, but partially loaded projects are not cached because
+// their lazy collections must not be shared between threads.
+public Project fetchProjectById(Integer projectId, FetchPlan plan) {
+	if(plan.isFullyEager()) {
+		return fetchProjectById(projectId);
+	}
+
+	Project project = projectCache.get(projectId);
+
+	if(Objects.nonNull(project)) {
+		return project;
+	}
+
+	return projectDao.fetchProjectById(projectId, plan).orElseThrow(() -> new NoSuchElementException("Project with project ID=" + projectId + " does not exist."));
+}
+
+// Read-only views for listings and reports. They are immutable, so they can be shared between
+// threads, and they are read without the project cache.
+public List<ProjectView> fetchProjectViews() {
+	return projectViewDao.fetchProjectViews();
+}
+
+public ProjectView fetchProjectView(int projectId) {
+	return projectViewDao.fetchProjectView(projectId).orElseThrow(() -> new NoSuchElementException("Project with project ID=" + projectId + " does not exist."));
+}
+
+// Cost and effort reports. Each one is a single aggregate query, so no projects are loaded.
+public List<ProjectCostSummary> fetchProjectCosts() {
+	return projectReportDao.fetchProjectCosts();
+}
+
+// Streams the per-project report to the consumer instead of building a list; for large tables.
+public void forEachProjectCost(Consumer<ProjectCostSummary> consumer) {
+	projectReportDao.forEachProjectCost(consumer);
+}
+
+public List<CostTotals> fetchCostsByCategory() {
+	return projectReportDao.fetchCostsByCategory();
+}
+
+public List<CostTotals> fetchCostsByDifficulty() {
+	return projectReportDao.fetchCostsByDifficulty();
+}
+
+public ProjectCache.Stats getCacheStats() {
+	return projectCache.getStats();
+}
+
+// Loads full projects (materials, steps and categories included) for many IDs at once using
+// batched IN-list queries. IDs that don't exist are skipped.
+public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+	return fetchProjectsByIds(projectIds, ProjectDao.DEFAULT_BATCH_SIZE);
+}
+
+public List<Project> fetchProjectsByIds(Collection<Integer> projectIds, int batchSize) {
+	return projectDao.fetchProjectsByIds(projectIds, batchSize);
 }
 
 public void modifyProjectDetails(Project project) {
 	// Call projectDao.modifyProjectDetails(). Pass the Project object as a parameter. 
 	// The DAO method returns a boolean that indicates whether the UPDATE operation was successful. 
 	// Check the return value. If it is false, throw a DbException with a message that says the project does not exist.
-	if(!projectDao.modifyProjectDetails(project)) {
-		throw new DbException("Project with ID=" + project.getProjectId() + " does not exist.");
-		
-				//project.GetProjectId() = Give me the ID of this project or in this instance get the ID of this project
+	// The cache entry is dropped once the write is done. That also advances the project's cache
+	// generation, so a read that started before then and loaded the old version doesn't cache it.
+	try {
+		if(!projectDao.modifyProjectDetails(project)) {
+			throw new DbException("Project with ID=" + project.getProjectId() + " does not exist.");
+			
+					//project.GetProjectId() = Give me the ID of this project or in this instance get the ID of this project
+		}
+	}
+	finally {
+		projectCache.invalidate(project.getProjectId());
 	}
 }
 
 public void deleteProject(Integer projectId) {
-	if(!projectDao.deleteProject(projectId))  {
-		throw new DbException("Project with ID=" + projectId + " does not exist.");
+	try {
+		if(!projectDao.deleteProject(projectId))  {
+			throw new DbException("Project with ID=" + projectId + " does not exist.");
+		}
+	}
+	finally {
+		projectCache.invalidate(projectId);
 	}
 }
 
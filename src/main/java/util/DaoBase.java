@@ -3,19 +3,16 @@
  */
 package util;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Time;
-import java.sql.Timestamp;
 import java.sql.Types;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -92,6 +89,10 @@ public abstract class DaoBase {
           stmt.setInt(parameterIndex, (Integer)value);
           break;
 
+        case Types.BIGINT:
+          stmt.setLong(parameterIndex, (Long)value);
+          break;
+
         case Types.OTHER:
           stmt.setObject(parameterIndex, value);
           break;
@@ -117,6 +118,10 @@ public abstract class DaoBase {
       return Types.INTEGER;
     }
 
+    if(Long.class.equals(classType)) {
+      return Types.BIGINT;
+    }
+
     if(String.class.equals(classType)) {
       return Types.VARCHAR;
     }
@@ -137,72 +142,83 @@ public abstract class DaoBase {
   }
 
   /**
-   * This retrieves the number of child rows and adds one to the value. It is used to set the order
-   * of a child row. For a *real* application, a more sophisticated approach is desired. This method
-   * does not allow for entity reordering and does not allow for an entity to be deleted.
+   * This builds the parameter markers for an IN list: "?, ?, ?" for a count of three.
    * 
-   * @param conn The connection
-   * @param id The ID of the parent entity
-   * @param tableName The name of the table with the child rows
-   * @param idName The name of the parent ID field
-   * @return The count of the entities attached to the parent plus one
-   * @throws SQLException Thrown if an error occurs.
+   * @param count The number of parameter markers. Must be at least one.
+   * @return The comma-separated parameter markers.
    */
-  protected Integer getNextSequenceNumber(Connection conn, Integer id, String tableName,
-      String idName) throws SQLException {
-    String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE " + idName + " = ?";
+  protected static String placeholders(int count) {
+    StringBuilder markers = new StringBuilder(count * 3);
 
-    try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-      setParameter(stmt, 1, id, Integer.class);
-
-      try(ResultSet rs = stmt.executeQuery()) {
-        if(rs.next()) {
-          return rs.getInt(1) + 1;
-        }
-
-        return 1;
-      }
+    for(int index = 0; index < count; index++) {
+      markers.append(index == 0 ? "?" : ", ?");
     }
+
+    return markers.toString();
   }
 
   /**
-   * This returns the integer primary key value of the last row inserted into the given table. It
-   * allows the ID to be inserted into the entity object after inserting it into the table.
+   * This returns the integer primary key value generated by the row just inserted with the given
+   * statement. The statement must have been prepared with {@link Statement#RETURN_GENERATED_KEYS}.
+   * It allows the ID to be inserted into the entity object after inserting it into the table.
    * 
-   * The other way of doing this is to call {@link Statement#getGeneratedKeys()}, but this returns a
-   * result set that needs to be parsed for the ID. It's not really any easier than this approach
-   * but should be closer to database-agnostic.
+   * The key comes back with the response to the INSERT itself, so unlike a follow-up
+   * "SELECT LAST_INSERT_ID()" query there is no extra round trip and the cost does not depend on the
+   * size of the table.
    * 
-   * @param conn The connection
-   * @param table The name of the table on which to get the last inserted primary key value
+   * @param stmt The statement that performed the insert
    * @return The primary key value
-   * @throws SQLException Thrown if an error occurs
+   * @throws SQLException Thrown if an error occurs or no key was generated
    */
-  protected Integer getLastInsertId(Connection conn, String table) throws SQLException {
-    String sql = String.format("SELECT LAST_INSERT_ID() FROM %s", table);
+  protected Integer getGeneratedId(Statement stmt) throws SQLException {
+    try(ResultSet rs = stmt.getGeneratedKeys()) {
+      if(rs.next()) {
+        return rs.getInt(1);
+      }
 
-    try(Statement stmt = conn.createStatement()) {
-      try(ResultSet rs = stmt.executeQuery(sql)) {
-        if(rs.next()) {
-          return rs.getInt(1);
-        }
+      throw new SQLException("Unable to retrieve the primary key value. No generated keys!");
+    }
+  }
 
-        throw new SQLException("Unable to retrieve the primary key value. No result set!");
+  /**
+   * This returns the integer primary key values generated by a batch insert, in the order the rows
+   * were added to the batch. The statement must have been prepared with
+   * {@link Statement#RETURN_GENERATED_KEYS}.
+   * 
+   * @param stmt The statement that executed the batch
+   * @param expected The number of rows in the batch
+   * @return The primary key values
+   * @throws SQLException Thrown if an error occurs or fewer keys than expected were returned
+   */
+  protected List<Integer> getGeneratedIds(Statement stmt, int expected) throws SQLException {
+    List<Integer> ids = new ArrayList<>(expected);
+
+    try(ResultSet rs = stmt.getGeneratedKeys()) {
+      while(rs.next()) {
+        ids.add(rs.getInt(1));
       }
     }
+
+    if(ids.size() != expected) {
+      throw new SQLException(
+          "Expected " + expected + " generated keys but the driver returned " + ids.size());
+    }
+
+    return ids;
   }
 
   /**
    * This extracts an object of the given type from a result set. The object must have a
-   * zero-argument constructor. It builds an object from a result set using reflection as follows:
+   * zero-argument constructor. The work is done by a {@link RowMapper} that is built once per class
+   * and cached:
    * <ol>
-   * <li>The zero-argument constructor is obtained.</li>
-   * <li>An object of the given class type is created.</li>
-   * <li>A list of fields is obtained using reflection.</li>
-   * <li>The field name is converted from Java naming to SQL naming conventions (camel case to snake
-   * case). Obviously, for this to work, the Java name must match the column name. So, if the Java
-   * name is numServings, the column name must be num_servings.</li>
-   * <li>The value is assigned to the field in the object.</li>
+   * <li>The zero-argument constructor is resolved.</li>
+   * <li>The fields are resolved and each field name is converted from Java naming to SQL naming
+   * conventions (camel case to snake case). Obviously, for this to work, the Java name must match
+   * the column name. So, if the Java name is numServings, the column name must be
+   * num_servings.</li>
+   * <li>The column index of each field is looked up once per result set shape.</li>
+   * <li>For each row, an object is created and the column values are assigned to the fields.</li>
    * </ol>
    * 
    * Example: if a query returns values for a recipe, a Recipe object is returned. So:
@@ -218,7 +234,7 @@ public abstract class DaoBase {
    * unchanged. So, class Recipe has an instance variable:
    * 
    * <pre>
-   * List<Ingredient> ingredients = new LinkedList<>();
+   * List<Ingredient> ingredients = new ArrayList<>();
    * </pre>
    * 
    * Since the result set does not contain a column named "ingredients", the value is left alone and
@@ -231,80 +247,39 @@ public abstract class DaoBase {
    * @return A populated class.
    */
   protected <T> T extract(ResultSet rs, Class<T> classType) {
-    try {
-      /* Obtain the constructor and create an object of the correct type. */
-      Constructor<T> con = classType.getConstructor();
-      T obj = con.newInstance();
-
-      /* Get the list of fields and loop through them. */
-      for(Field field : classType.getDeclaredFields()) {
-        String colName = camelCaseToSnakeCase(field.getName());
-        Class<?> fieldType = field.getType();
-
-        /*
-         * Set the field accessible flag which means that we can populate even private fields
-         * without using the setter.
-         */
-        field.setAccessible(true);
-        Object fieldValue = null;
-
-        try {
-          fieldValue = rs.getObject(colName);
-        }
-        catch(SQLException e) {
-          /*
-           * An exception caught here means that the field name isn't in the result set. Don't take
-           * any action.
-           */
-        }
-
-        /*
-         * Only set the value in the object if there is a value with the same name in the result
-         * set. This will preserve instance variables (like lists) that are assigned values when the
-         * object is created.
-         */
-        if(Objects.nonNull(fieldValue)) {
-          /*
-           * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
-           */
-          if(fieldValue instanceof Time && fieldType.equals(LocalTime.class)) {
-            fieldValue = ((Time)fieldValue).toLocalTime();
-          }
-          else if(fieldValue instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
-            fieldValue = ((Timestamp)fieldValue).toLocalDateTime();
-          }
-
-          field.set(obj, fieldValue);
-        }
-      }
-
-      return obj;
-
-    }
-    catch(Exception e) {
-      throw new DaoException("Unable to create object of type " + classType.getName(), e);
-    }
+    return RowMapper.forClass(classType).map(rs);
   }
 
   /**
-   * This converts a camel case value (rowInsertTime) to snake case (row_insert_time).
+   * This works like {@link #extract(ResultSet, Class)} but reads the result set's columns only
+   * once. Call it before the row loop and extract each row with the returned object:
+   * 
+   * <pre>
+   * RowExtractor&lt;Recipe&gt; recipes = extractor(rs, Recipe.class);
+   * 
+   * while(rs.next()) {
+   *   list.add(recipes.extract(rs));
+   * }
+   * </pre>
    * 
-   * @param identifier The name in camel case to convert.
-   * @return The name converted to snake case.
+   * @param <T> The Generic for the type of object to create.
+   * @param rs The result set whose rows will be extracted.
+   * @param classType The actual class type of the objects to create.
+   * @return An extractor for the rows of this result set.
    */
-  private String camelCaseToSnakeCase(String identifier) {
-    StringBuilder nameBuilder = new StringBuilder();
-
-    for(char ch : identifier.toCharArray()) {
-      if(Character.isUpperCase(ch)) {
-        nameBuilder.append('_').append(Character.toLowerCase(ch));
-      }
-      else {
-        nameBuilder.append(ch);
-      }
-    }
+  protected <T> RowExtractor<T> extractor(ResultSet rs, Class<T> classType) {
+    return RowMapper.forClass(classType).bind(rs);
+  }
 
-    return nameBuilder.toString();
+  /**
+   * Maps rows of the result set it was created for onto objects. See
+   * {@link DaoBase#extractor(ResultSet, Class)}.
+   *
+   * @param <T> The type of object created from each row.
+   */
+  @FunctionalInterface
+  public interface RowExtractor<T> {
+    T extract(ResultSet rs);
   }
 
   /**
@@ -0,0 +1,232 @@
+/**
+ *
+ */
+package util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This maps result set rows onto objects of a single class. All of the reflection work is done
+ * once, when the mapper is created:
+ * <ul>
+ * <li>The zero-argument constructor is resolved to a {@link MethodHandle}.</li>
+ * <li>Each instance field is resolved to a {@link VarHandle} and its column name is computed by
+ * converting the field name from camel case to snake case.</li>
+ * </ul>
+ *
+ * The column index of each field is then resolved once per result set shape (the list of column
+ * labels in the result set metadata) and cached. {@link #bind(ResultSet)} does that lookup once
+ * for a result set and returns an extractor that maps its rows, so mapping a row is just a
+ * constructor call and one {@link ResultSet#getObject(int)} per mapped column. The metadata is
+ * not read again per row: drivers such as MySQL Connector/J build a new metadata object on every
+ * {@link ResultSet#getMetaData()} call.
+ *
+ * Mappers are shared and thread-safe. Obtain one with {@link #forClass(Class)}.
+ *
+ * @author Promineo
+ *
+ * @param <T> The type of object created from each row.
+ */
+class RowMapper<T> {
+  private static final ClassValue<RowMapper<?>> MAPPERS = new ClassValue<>() {
+    @Override
+    protected RowMapper<?> computeValue(Class<?> type) {
+      return new RowMapper<>(type);
+    }
+  };
+
+  private final Class<T> classType;
+  private final MethodHandle constructor;
+  private final String[] columnNames;
+  private final VarHandle[] fieldHandles;
+  private final Class<?>[] fieldTypes;
+
+  /* Column indexes for each field keyed by result set shape. -1 means the column is absent. */
+  private final Map<String, int[]> indexesByShape = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the cached mapper for the given class, creating it on first use.
+   *
+   * @param <T> The mapped type.
+   * @param classType The class to map rows onto. It must have a public zero-argument constructor.
+   * @return The mapper.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> RowMapper<T> forClass(Class<T> classType) {
+    return (RowMapper<T>)MAPPERS.get(classType);
+  }
+
+  private RowMapper(Class<T> classType) {
+    this.classType = classType;
+
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(classType, MethodHandles.lookup());
+
+      constructor = lookup.findConstructor(classType, MethodType.methodType(void.class));
+
+      List<Field> fields = new ArrayList<>();
+
+      for(Field field : classType.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+
+        if(!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+          fields.add(field);
+        }
+      }
+
+      columnNames = new String[fields.size()];
+      fieldHandles = new VarHandle[fields.size()];
+      fieldTypes = new Class<?>[fields.size()];
+
+      for(int i = 0; i < fields.size(); i++) {
+        Field field = fields.get(i);
+
+        columnNames[i] = camelCaseToSnakeCase(field.getName());
+        fieldHandles[i] = lookup.unreflectVarHandle(field);
+        fieldTypes[i] = field.getType();
+      }
+    }
+    catch(ReflectiveOperationException e) {
+      throw new DaoBase.DaoException("Unable to create a row mapper for " + classType.getName(),
+          e);
+    }
+  }
+
+  /**
+   * Resolves the column indexes for the result set and returns an extractor that maps its rows.
+   * Call it once, before reading the rows.
+   *
+   * @param rs The result set whose rows will be mapped.
+   * @return The extractor. It must only be used with rows of this result set.
+   */
+  DaoBase.RowExtractor<T> bind(ResultSet rs) {
+    int[] indexes;
+
+    try {
+      indexes = indexesFor(rs.getMetaData());
+    }
+    catch(SQLException e) {
+      throw new DaoBase.DaoException("Unable to read the columns for " + classType.getName(), e);
+    }
+
+    return row -> map(row, indexes);
+  }
+
+  /**
+   * Creates an object from the current row of the result set. Fields without a matching column
+   * are left at the value assigned by the constructor, as are fields whose column is SQL NULL.
+   * This resolves the columns again for each call; use {@link #bind(ResultSet)} for many rows.
+   *
+   * @param rs The result set, positioned on the row to map.
+   * @return The populated object.
+   */
+  T map(ResultSet rs) {
+    return bind(rs).extract(rs);
+  }
+
+  private T map(ResultSet rs, int[] indexes) {
+    try {
+      @SuppressWarnings("unchecked")
+      T obj = (T)constructor.invoke();
+
+      for(int i = 0; i < indexes.length; i++) {
+        if(indexes[i] < 0) {
+          continue;
+        }
+
+        Object fieldValue = rs.getObject(indexes[i]);
+
+        if(Objects.nonNull(fieldValue)) {
+          /*
+           * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
+           */
+          if(fieldValue instanceof Time && fieldTypes[i].equals(LocalTime.class)) {
+            fieldValue = ((Time)fieldValue).toLocalTime();
+          }
+          else if(fieldValue instanceof Timestamp && fieldTypes[i].equals(LocalDateTime.class)) {
+            fieldValue = ((Timestamp)fieldValue).toLocalDateTime();
+          }
+
+          fieldHandles[i].set(obj, fieldValue);
+        }
+      }
+
+      return obj;
+    }
+    catch(Throwable e) {
+      throw new DaoBase.DaoException("Unable to create object of type " + classType.getName(), e);
+    }
+  }
+
+  /**
+   * Returns the column index for each field for the given result set shape, resolving and caching
+   * it on first sight of the shape.
+   */
+  private int[] indexesFor(ResultSetMetaData metaData) throws SQLException {
+    int columnCount = metaData.getColumnCount();
+    String[] labels = new String[columnCount];
+    StringBuilder shape = new StringBuilder();
+
+    for(int col = 1; col <= columnCount; col++) {
+      labels[col - 1] = metaData.getColumnLabel(col);
+      shape.append(labels[col - 1]).append(',');
+    }
+
+    return indexesByShape.computeIfAbsent(shape.toString(), key -> resolve(labels));
+  }
+
+  private int[] resolve(String[] labels) {
+    int[] indexes = new int[columnNames.length];
+
+    for(int i = 0; i < columnNames.length; i++) {
+      indexes[i] = -1;
+
+      for(int col = 0; col < labels.length; col++) {
+        if(columnNames[i].equalsIgnoreCase(labels[col])) {
+          indexes[i] = col + 1;
+          break;
+        }
+      }
+    }
+
+    return indexes;
+  }
+
+  /**
+   * This converts a camel case value (rowInsertTime) to snake case (row_insert_time).
+   *
+   * @param identifier The name in camel case to convert.
+   * @return The name converted to snake case.
+   */
+  static String camelCaseToSnakeCase(String identifier) {
+    StringBuilder nameBuilder = new StringBuilder();
+
+    for(char ch : identifier.toCharArray()) {
+      if(Character.isUpperCase(ch)) {
+        nameBuilder.append('_').append(Character.toLowerCase(ch));
+      }
+      else {
+        nameBuilder.append(ch);
+      }
+    }
+
+    return nameBuilder.toString();
+  }
+}
@@ -0,0 +1,2 @@
+-- Optimistic locking: every successful update of a project row increments its version.
+ALTER TABLE project ADD COLUMN version INT NOT NULL DEFAULT 0;
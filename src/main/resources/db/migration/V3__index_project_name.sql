@@ -0,0 +1,3 @@
+-- Project listings and keyset pagination order by (project_name, project_id). With this index
+-- they read the rows in order instead of sorting the whole table.
+CREATE INDEX idx_project_name ON project (project_name, project_id);
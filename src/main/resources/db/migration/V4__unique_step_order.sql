@@ -0,0 +1,13 @@
+-- Steps used to be numbered with COUNT(*) + 1, which could produce duplicates after a delete or
+-- under concurrent inserts. Renumber each project's steps 1024, 2048, ... in their current order
+-- (ties broken by step_id) so they match the gap-based ranking, then make the order unique. The
+-- unique index also serves ordered step reads for a project.
+UPDATE step s
+	JOIN (
+		SELECT step_id,
+			ROW_NUMBER() OVER (PARTITION BY project_id ORDER BY step_order, step_id) * 1024 AS step_rank
+		FROM step
+	) ranked ON ranked.step_id = s.step_id
+	SET s.step_order = ranked.step_rank;
+
+CREATE UNIQUE INDEX uk_step_order ON step (project_id, step_order);
@@ -0,0 +1,3 @@
+-- Material loads look rows up by project_id. Name the index explicitly rather than relying on the
+-- one InnoDB creates implicitly for the foreign key.
+CREATE INDEX idx_material_project ON material (project_id, material_id);
@@ -1,3 +1,4 @@
+DROP TABLE IF EXISTS schema_version;
 DROP TABLE IF EXISTS project_category;
 DROP TABLE IF EXISTS step;
 DROP TABLE IF EXISTS material;
@@ -11,7 +12,9 @@ CREATE TABLE project (
 	actual_hours DECIMAL(7,2),
 	difficulty INT NOT NULL,
 	notes TEXT,
-	PRIMARY KEY (project_id)
+	version INT NOT NULL DEFAULT 0,
+	PRIMARY KEY (project_id),
+	INDEX idx_project_name (project_name, project_id)
 );
 
 CREATE TABLE category (
@@ -27,6 +30,7 @@ CREATE TABLE material (
 	num_required INT, 
 	cost DECIMAL(7,2),
 	PRIMARY KEY (material_id),
+	INDEX idx_material_project (project_id, material_id),
 	FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE
     
 );
@@ -37,6 +41,7 @@ CREATE TABLE step (
 	step_text TEXT NOT NULL,
 	step_order INT NOT NULL,
 	PRIMARY KEY (step_id),
+	UNIQUE KEY uk_step_order (project_id, step_order),
 	FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE
 );
 